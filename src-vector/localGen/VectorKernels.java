@@ -0,0 +1,61 @@
+package localGen;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class implements the kernels of ClosureKernels with the Vector API: the words of the bitsets are processed
+ * by vectors of the widest size supported by the processor (e.g., 4 words with AVX2, 8 with AVX-512), the last words one at a time.
+ *
+ * It needs the incubator module jdk.incubator.vector, and is thus compiled apart from the other classes:
+ * javac --add-modules jdk.incubator.vector -cp bin -d bin src-vector/localGen/VectorKernels.java
+ * ClosureKernels loads it by reflection when the JVM is run with --add-modules jdk.incubator.vector.
+ *
+ */
+class VectorKernels implements ClosureKernels.Kernels {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	@Override
+	public void and(long[] acc, long[] b, int from, int to) {
+
+		int i = from;
+		int bound = from + SPECIES.loopBound(to - from);
+
+		for (; i < bound; i += SPECIES.length()) {
+			LongVector.fromArray(SPECIES, acc, i).and(LongVector.fromArray(SPECIES, b, i)).intoArray(acc, i);
+		}
+		for (; i < to; i++) {
+			acc[i] &= b[i];
+		}
+	}
+
+	@Override
+	public boolean isSubset(long[] a, long[] b, int n) {
+
+		int i = 0;
+		int bound = SPECIES.loopBound(n);
+
+		// a is included in b if no word of a AND NOT b has an element
+
+		for (; i < bound; i += SPECIES.length()) {
+			if (LongVector.fromArray(SPECIES, a, i).and(LongVector.fromArray(SPECIES, b, i).not()).compare(VectorOperators.NE, 0).anyTrue()) {
+				return false;
+			}
+		}
+		for (; i < n; i++) {
+			if ((a[i] & ~b[i]) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
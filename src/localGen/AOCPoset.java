@@ -0,0 +1,112 @@
+package localGen;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class represents an AOC-poset, or a part of it: its concepts, interned in a ConceptRegistry,
+ * and the edges of its Hasse diagram, linking each concept to its direct super-concepts.
+ *
+ * Concepts and edges may be added by several threads at the same time.
+ *
+ */
+public class AOCPoset {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Concepts of the AOC-poset
+	 */
+	private ConceptRegistry registry = new ConceptRegistry();
+
+	/**
+	 * Ids of the direct super-concepts and sub-concepts of each concept, by id
+	 */
+	private ConcurrentHashMap<Integer, Set<Integer>> upper = new ConcurrentHashMap<Integer, Set<Integer>>();
+	private ConcurrentHashMap<Integer, Set<Integer>> lower = new ConcurrentHashMap<Integer, Set<Integer>>();
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the registry of the concepts.
+	 */
+	public ConceptRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * Returns the number of concepts.
+	 */
+	public int getNumberOfConcepts() {
+		return registry.size();
+	}
+
+	/**
+	 * Returns the number of edges of the Hasse diagram.
+	 */
+	public int getNumberOfEdges() {
+
+		int edges = 0;
+
+		for (Set<Integer> s : upper.values()) {
+			edges += s.size();
+		}
+		return edges;
+	}
+
+	/**
+	 * Returns the ids of the direct super-concepts of the concept of id id.
+	 *
+	 * @param id the id of a concept
+	 * @return a set of ids
+	 */
+	public Set<Integer> getUpperNeighbours(int id) {
+		return Collections.unmodifiableSet(upper.getOrDefault(id, Collections.emptySet()));
+	}
+
+	/**
+	 * Returns the ids of the direct sub-concepts of the concept of id id.
+	 *
+	 * @param id the id of a concept
+	 * @return a set of ids
+	 */
+	public Set<Integer> getLowerNeighbours(int id) {
+		return Collections.unmodifiableSet(lower.getOrDefault(id, Collections.emptySet()));
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Adds a concept, if it is not in the AOC-poset yet.
+	 *
+	 * @param c a concept
+	 * @return the id of the concept
+	 */
+	public int addConcept(Concept c) {
+		return registry.intern(c);
+	}
+
+	/**
+	 * Adds the edge between a concept and one of its direct super-concepts.
+	 *
+	 * @param sub the id of the sub-concept
+	 * @param sup the id of the super-concept
+	 */
+	public void addEdge(int sub, int sup) {
+		upper.computeIfAbsent(sub, k -> ConcurrentHashMap.newKeySet()).add(sup);
+		lower.computeIfAbsent(sup, k -> ConcurrentHashMap.newKeySet()).add(sub);
+	}
+
+	/**
+	 * Returns the number of concepts and edges.
+	 */
+	public String toString() {
+		return "AOC-poset: " + getNumberOfConcepts() + " concepts, " + getNumberOfEdges() + " edges";
+	}
+}
@@ -0,0 +1,382 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * This class estimates the size of the AOC-poset of a formal context and the average size of a conceptual neighbourhood,
+ * without enumerating all the concepts.
+ *
+ * Introducers are sampled with a seeded random generator:
+ * each step draws an object and an attribute, computes their introducers and the upper and lower covers of these introducers.
+ *
+ * The number of concepts is estimated as n * mean(1/k(o)) + m * mean([a not in an object-concept]/k(a)),
+ * where k(o) (resp. k(a)) is the number of objects (resp. attributes) introduced in the same concept as o (resp. a).
+ * The average degree is the ratio of the estimated sum of neighbourhood sizes to the estimated number of concepts.
+ *
+ * The sampling stops as soon as the relative half-width of both confidence intervals is below a target,
+ * or when the maximum number of steps is reached.
+ *
+ */
+public class AOCPosetEstimator {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Formal context of which the AOC-poset is estimated
+	 */
+	private FormalContext formalContext;
+
+	/**
+	 * Seeded random generator used to draw objects and attributes
+	 */
+	private Random random;
+
+	/**
+	 * Quantile of the normal distribution used for the confidence intervals (1.96 for 95%)
+	 */
+	private double z = 1.96;
+
+	/**
+	 * Targeted relative half-width of the confidence intervals
+	 */
+	private double targetRelativeError = 0.1;
+
+	/**
+	 * Minimum and maximum number of sampling steps
+	 */
+	private int minSteps = 20;
+	private int maxSteps = 500;
+
+	/**
+	 * Weights (1/k) of the object draws, and neighbourhood sizes of their introducers
+	 */
+	private ArrayList<Double> objWeights = new ArrayList<Double>();
+	private ArrayList<Integer> objDegrees = new ArrayList<Integer>();
+
+	/**
+	 * Weights ([not an object-concept]/k) of the attribute draws, and neighbourhood sizes of their introducers
+	 */
+	private ArrayList<Double> attWeights = new ArrayList<Double>();
+	private ArrayList<Integer> attDegrees = new ArrayList<Integer>();
+
+	/**
+	 * Results of the last estimation
+	 */
+	private double numberOfConcepts;
+	private double numberOfConceptsError;
+	private double averageDegree;
+	private double averageDegreeError;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates a new estimator for the formal context fc.
+	 *
+	 * @param fc a formal context
+	 * @param seed the seed of the random generator, so that two estimations with the same seed draw the same introducers
+	 */
+	public AOCPosetEstimator(FormalContext fc, long seed) {
+		this.formalContext = fc;
+		this.random = new Random(seed);
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Sets the targeted relative half-width of the confidence intervals (e.g., 0.05 for +/- 5%).
+	 *
+	 * @param targetRelativeError a positive ratio
+	 */
+	public void setTargetRelativeError(double targetRelativeError) {
+		this.targetRelativeError = targetRelativeError;
+	}
+
+	/**
+	 * Sets the quantile of the normal distribution used for the confidence intervals.
+	 *
+	 * @param z a quantile, e.g., 1.96 for a 95% confidence interval
+	 */
+	public void setConfidenceQuantile(double z) {
+		this.z = z;
+	}
+
+	/**
+	 * Sets the bounds of the number of sampling steps.
+	 *
+	 * @param minSteps the number of steps done before testing the stop criterion
+	 * @param maxSteps the number of steps after which the sampling stops anyway
+	 */
+	public void setSteps(int minSteps, int maxSteps) {
+		this.minSteps = Math.max(2, minSteps);
+		this.maxSteps = Math.max(this.minSteps, maxSteps);
+	}
+
+	/**
+	 * Returns the estimated number of concepts of the AOC-poset.
+	 *
+	 * @return the estimated number of concepts
+	 */
+	public double getNumberOfConcepts() {
+		return numberOfConcepts;
+	}
+
+	/**
+	 * Returns the half-width of the confidence interval of the number of concepts.
+	 *
+	 * @return the error bound of the number of concepts
+	 */
+	public double getNumberOfConceptsError() {
+		return numberOfConceptsError;
+	}
+
+	/**
+	 * Returns the estimated average size of a conceptual neighbourhood (upper cover + lower cover).
+	 *
+	 * @return the estimated average degree
+	 */
+	public double getAverageDegree() {
+		return averageDegree;
+	}
+
+	/**
+	 * Returns the half-width of the confidence interval of the average degree.
+	 *
+	 * @return the error bound of the average degree
+	 */
+	public double getAverageDegreeError() {
+		return averageDegreeError;
+	}
+
+	/**
+	 * Returns the number of sampling steps done during the last estimation.
+	 *
+	 * @return the number of steps
+	 */
+	public int getNumberOfSteps() {
+		return objWeights.size();
+	}
+
+	/**
+	 * Returns a String documenting the estimation.
+	 */
+	public String toString() {
+		return String.format("Estimated number of concepts:\t\t%.1f +/- %.1f\n", numberOfConcepts, numberOfConceptsError)
+				+ String.format("Estimated average degree:\t\t%.2f +/- %.2f\n", averageDegree, averageDegreeError)
+				+ "Number of sampling steps:\t\t" + getNumberOfSteps();
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Samples introducers until the targeted precision or the maximum number of steps is reached,
+	 * and updates the estimations.
+	 */
+	public void estimate() {
+
+		objWeights.clear();
+		objDegrees.clear();
+		attWeights.clear();
+		attDegrees.clear();
+
+		int n = formalContext.getNumberOfObjects();
+		int m = formalContext.getAttributes().size();
+
+		if (n == 0 || m == 0) {
+			System.err.println("Cannot estimate the AOC-poset of an empty formal context.");
+			return;
+		}
+
+		Concept c = new Concept();
+
+		for (int step = 0; step < maxSteps; step++) {
+
+			// Draws an object and weights its introducer by the number of objects it introduces
+
+			String o = Integer.toString(1 + random.nextInt(n));
+			c.setObjIntroducer(o, formalContext);
+			objWeights.add(1.0 / numberOfIntroducedObjects(c));
+			objDegrees.add(degree(c));
+
+			// Draws an attribute, only counted if its introducer has not already been counted as an object-concept
+
+			String a = formalContext.getAttributes().get(random.nextInt(m));
+			c.setAttIntroducer(a, formalContext);
+			if (numberOfIntroducedObjects(c) == 0) {
+				attWeights.add(1.0 / numberOfIntroducedAttributes(c));
+				attDegrees.add(degree(c));
+			} else {
+				attWeights.add(0.0);
+				attDegrees.add(0);
+			}
+
+			// Tests the stop criterion
+
+			if (step + 1 >= minSteps) {
+
+				computeEstimations(n, m);
+
+				if (numberOfConceptsError <= targetRelativeError * numberOfConcepts
+						&& averageDegreeError <= targetRelativeError * averageDegree) {
+					return;
+				}
+			}
+		}
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Returns the size of the conceptual neighbourhood of the concept c.
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @return the size of its upper cover plus the size of its lower cover
+	 */
+	private int degree(Concept c) {
+		return TestLocalGen.upperCover(c, formalContext) + TestLocalGen.lowerCover(c, formalContext);
+	}
+
+	/**
+	 * Returns the number of objects introduced in the concept c, i.e., the objects of its extent of which it is the introducer.
+	 *
+	 * @param c a concept
+	 * @return the number of objects introduced in c
+	 */
+	private int numberOfIntroducedObjects(Concept c) {
+		int k = 0;
+		for (String o : c.getExtent()) {
+			if (formalContext.isObjIntroducedIn(o, c)) {
+				k++;
+			}
+		}
+		return k;
+	}
+
+	/**
+	 * Returns the number of attributes introduced in the concept c, i.e., the attributes of its intent of which it is the introducer.
+	 *
+	 * @param c a concept
+	 * @return the number of attributes introduced in c
+	 */
+	private int numberOfIntroducedAttributes(Concept c) {
+		int k = 0;
+		for (String a : c.getIntent()) {
+			if (formalContext.isAttIntroducedIn(a, c)) {
+				k++;
+			}
+		}
+		return Math.max(1, k);
+	}
+
+	/**
+	 * Computes the estimations and their error bounds from the current samples.
+	 *
+	 * @param n the number of objects
+	 * @param m the number of attributes
+	 */
+	private void computeEstimations(int n, int m) {
+
+		int s = objWeights.size();
+
+		// Number of concepts: sum of two independent Horvitz-Thompson estimators
+
+		double meanObj = mean(objWeights, null);
+		double meanAtt = mean(attWeights, null);
+
+		numberOfConcepts = n * meanObj + m * meanAtt;
+		numberOfConceptsError = z * Math.sqrt(((double) n * n * variance(objWeights, null, meanObj, 0)
+				+ (double) m * m * variance(attWeights, null, meanAtt, 0)) / s);
+
+		// Average degree: ratio of the estimated sum of degrees to the estimated number of concepts
+
+		double totalDegree = n * mean(objWeights, objDegrees) + m * mean(attWeights, attDegrees);
+
+		averageDegree = numberOfConcepts > 0 ? totalDegree / numberOfConcepts : 0;
+
+		// Linearisation of the ratio: residuals d*w - r*w
+
+		double varObj = variance(objWeights, objDegrees, 0, averageDegree);
+		double varAtt = variance(attWeights, attDegrees, 0, averageDegree);
+
+		averageDegreeError = numberOfConcepts > 0 ?
+				z * Math.sqrt(((double) n * n * varObj + (double) m * m * varAtt) / s) / numberOfConcepts : 0;
+	}
+
+	/**
+	 * Returns the mean of the weights w, each multiplied by the corresponding degree if d is not null.
+	 */
+	private static double mean(ArrayList<Double> w, ArrayList<Integer> d) {
+		double sum = 0;
+		for (int i = 0; i < w.size(); i++) {
+			sum += w.get(i) * (d == null ? 1 : d.get(i));
+		}
+		return sum / w.size();
+	}
+
+	/**
+	 * Returns the sample variance of the values w (if d is null) or of the residuals w*d - r*w (otherwise).
+	 * The mean of the residuals is recomputed, so that mean is only used when d is null.
+	 */
+	private static double variance(ArrayList<Double> w, ArrayList<Integer> d, double mean, double r) {
+
+		int s = w.size();
+		double[] values = new double[s];
+
+		for (int i = 0; i < s; i++) {
+			values[i] = d == null ? w.get(i) : w.get(i) * d.get(i) - r * w.get(i);
+		}
+
+		if (d != null) {
+			mean = 0;
+			for (double v : values) {
+				mean += v;
+			}
+			mean /= s;
+		}
+
+		double sum = 0;
+		for (double v : values) {
+			sum += (v - mean) * (v - mean);
+		}
+		return sum / (s - 1);
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Estimates the AOC-poset of the variant list specified in parameter (relative to "data/").
+	 *
+	 * @param args the path of a variant list, and optionally a seed
+	 */
+	public static void main(String[] args) {
+
+		String path = args.length > 0 ? args[0] : "fork-insight/linux/output.txt";
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+		FormalContext formalContext = new FormalContext(path);
+
+		long currentTime = java.lang.System.currentTimeMillis();
+
+		AOCPosetEstimator estimator = new AOCPosetEstimator(formalContext, seed);
+		estimator.estimate();
+
+		long timeExec = java.lang.System.currentTimeMillis() - currentTime;
+
+		System.out.println("Name:\t\t\t\t\t" + path);
+		System.out.println("Number of objects:\t\t\t" + formalContext.getNumberOfObjects());
+		System.out.println("Number of attributes:\t\t\t" + formalContext.getAttributes().size());
+		System.out.println(estimator);
+		System.out.println("Time of estimation:\t\t\t" + timeExec + " ms");
+	}
+}
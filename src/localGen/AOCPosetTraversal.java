@@ -0,0 +1,372 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class builds an AOC-poset by local generation only: starting from some introducers,
+ * it computes the neighbourhood of each concept met, until no new concept is found.
+ *
+ * The traversal proceeds level by level: the neighbourhoods of the concepts of the frontier are computed in parallel
+ * on a fork-join pool, whose idle threads steal the remaining concepts of the busy ones.
+ * A concept enters the next frontier the first time it is met, thanks to a concurrent set of visited concept keys,
+ * i.e., of extents (see Concept.getKey()).
+ *
+ * The upper and lower covers are those of the Hasse diagram of the extents of the introducers, as CoverChecker checks:
+ * the traversal reaches the concepts connected to the seeds in this diagram, with all their edges.
+ * Starting from one introducer per connected component builds the whole AOC-poset; main compares it with the diagram computed by brute force.
+ *
+ */
+public class AOCPosetTraversal {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Statistics of a level of the traversal
+	 */
+	public static class Level {
+
+		private int concepts;
+		private int discovered;
+		private long nanos;
+
+		/**
+		 * Returns the number of concepts of the frontier, whose neighbourhood was computed.
+		 */
+		public int getNumberOfConcepts() {
+			return concepts;
+		}
+
+		/**
+		 * Returns the number of new concepts found in the neighbourhoods.
+		 */
+		public int getNumberOfDiscovered() {
+			return discovered;
+		}
+
+		/**
+		 * Returns the time spent on the level, in milliseconds.
+		 */
+		public double getTime() {
+			return nanos / 1e6;
+		}
+
+		/**
+		 * Returns the number of neighbourhoods computed per second.
+		 */
+		public double getThroughput() {
+			return nanos == 0 ? 0 : concepts * 1e9 / nanos;
+		}
+
+		public String toString() {
+			return String.format("%d concepts, %d new, %.1f ms, %.0f neighbourhoods/s", concepts, discovered, getTime(), getThroughput());
+		}
+	}
+
+	/**
+	 * Formal context of the AOC-poset
+	 */
+	private FormalContext formalContext;
+
+	/**
+	 * Threads computing the neighbourhoods
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Statistics of the levels of the last traversal
+	 */
+	private ArrayList<Level> levels = new ArrayList<Level>();
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates a traversal of the AOC-poset of a formal context.
+	 *
+	 * @param formalContext a formal context
+	 * @param parallelism the number of threads
+	 */
+	public AOCPosetTraversal(FormalContext formalContext, int parallelism) {
+		this.formalContext = formalContext;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the statistics of the levels of the last traversal.
+	 */
+	public ArrayList<Level> getLevels() {
+		return levels;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Builds the part of the AOC-poset reachable from the concepts seeds.
+	 *
+	 * @param seeds concepts of the AOC-poset (introducers)
+	 * @return the concepts reached and the edges between them
+	 */
+	public AOCPoset traverse(Collection<Concept> seeds) {
+
+		AOCPoset poset = new AOCPoset();
+		Set<String> visited = ConcurrentHashMap.newKeySet();
+
+		levels.clear();
+
+		ArrayList<Concept> frontier = new ArrayList<Concept>();
+
+		for (Concept c : seeds) {
+			if (visited.add(c.getKey())) {
+				poset.addConcept(c);
+				frontier.add(new Concept(c.getIntent(), c.getExtent()));
+			}
+		}
+
+		while (!frontier.isEmpty()) {
+
+			ConcurrentLinkedQueue<Concept> next = new ConcurrentLinkedQueue<Concept>();
+			ArrayList<Concept> current = frontier;
+
+			long start = System.nanoTime();
+
+			try {
+				pool.submit(() -> current.parallelStream().forEach(c -> expand(c, poset, visited, next))).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+
+			Level level = new Level();
+			level.concepts = current.size();
+			level.discovered = next.size();
+			level.nanos = System.nanoTime() - start;
+			levels.add(level);
+
+			frontier = new ArrayList<Concept>(next);
+		}
+		return poset;
+	}
+
+	/**
+	 * Stops the threads.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Builds the concepts of the AOC-poset globally, by computing the introducer of each object and of each attribute.
+	 * Used as a reference for the traversal.
+	 *
+	 * @param formalContext a formal context
+	 * @return the AOC-poset, without its edges
+	 */
+	public static AOCPoset introducers(FormalContext formalContext) {
+
+		AOCPoset poset = new AOCPoset();
+		Concept c = new Concept();
+
+		for (int o = 1; o <= formalContext.getNumberOfObjects(); o++) {
+			c.setObjIntroducer(Integer.toString(o), formalContext);
+			poset.addConcept(c);
+		}
+
+		for (String a : formalContext.getAttributes()) {
+			c.setAttIntroducer(a, formalContext);
+			poset.addConcept(c);
+		}
+		return poset;
+	}
+
+
+	/**
+	 * Builds the AOC-poset globally with its edges, by brute force: each introducer is linked to the introducers
+	 * of smallest extent strictly including its extent, found by comparing all the extents.
+	 * Used as a reference for the edges of the traversal.
+	 *
+	 * @param formalContext a formal context
+	 * @return the AOC-poset, with its edges
+	 */
+	public static AOCPoset hasseDiagram(FormalContext formalContext) {
+
+		AOCPoset poset = introducers(formalContext);
+		ArrayList<HashSet<String>> extents = new ArrayList<HashSet<String>>();
+
+		for (int i = 0; i < poset.getNumberOfConcepts(); i++) {
+			extents.add(new HashSet<String>(poset.getRegistry().getConcept(i).getExtent()));
+		}
+
+		for (int i = 0; i < extents.size(); i++) {
+
+			HashSet<String> extent = extents.get(i);
+			ArrayList<Integer> above = new ArrayList<Integer>();
+
+			for (int j = 0; j < extents.size(); j++) {
+				if (extents.get(j).size() > extent.size() && extents.get(j).containsAll(extent)) {
+					above.add(j);
+				}
+			}
+
+			for (int j : above) {
+				HashSet<String> e = extents.get(j);
+				if (above.stream().noneMatch(k -> extents.get(k).size() < e.size() && e.containsAll(extents.get(k)))) {
+					poset.addEdge(i, j);
+				}
+			}
+		}
+		return poset;
+	}
+
+	/**
+	 * Returns the edges of an AOC-poset, each one as the keys of its sub-concept and of its super-concept.
+	 *
+	 * @param poset an AOC-poset
+	 * @return a set of edges
+	 */
+	public static HashSet<String> edges(AOCPoset poset) {
+
+		HashSet<String> edges = new HashSet<String>();
+
+		for (int i = 0; i < poset.getNumberOfConcepts(); i++) {
+			for (int j : poset.getUpperNeighbours(i)) {
+				edges.add(poset.getRegistry().getConcept(i).getKey() + " < " + poset.getRegistry().getConcept(j).getKey());
+			}
+		}
+		return edges;
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Computes the neighbourhood of c, adds its edges to the AOC-poset, and puts the concepts not visited yet in the next frontier.
+	 */
+	private void expand(Concept c, AOCPoset poset, Set<String> visited, ConcurrentLinkedQueue<Concept> next) {
+
+		Neighbourhood n = Neighbourhood.compute(c, formalContext);
+		int id = poset.addConcept(c);
+
+		for (Concept u : n.getUpperCover().getConcepts()) {
+			poset.addEdge(id, visit(u, poset, visited, next));
+		}
+
+		for (Concept l : n.getLowerCover().getConcepts()) {
+			poset.addEdge(visit(l, poset, visited, next), id);
+		}
+	}
+
+	/**
+	 * Adds a concept to the AOC-poset, and to the next frontier if it was not visited yet.
+	 */
+	private static int visit(Concept c, AOCPoset poset, Set<String> visited, ConcurrentLinkedQueue<Concept> next) {
+
+		int id = poset.addConcept(c);
+
+		if (visited.add(c.getKey())) {
+			next.add(c);
+		}
+		return id;
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Builds the AOC-poset of a variant list by local generation from a few random introducers,
+	 * prints the throughput of each level, and compares the concepts reached and their edges with the Hasse diagram computed by brute force.
+	 *
+	 * @param args the path of a variant list (relative to "data/"), the number of threads, the number of seeds and the seed of the random generator
+	 */
+	public static void main(String[] args) {
+
+		String path = args.length > 0 ? args[0] : "fork-insight/docker/output.txt";
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int seeds = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+		Random random = new Random(args.length > 3 ? Long.parseLong(args[3]) : 42);
+
+		FormalContext formalContext = new FormalContext(path);
+
+		ArrayList<Concept> introducers = new ArrayList<Concept>();
+
+		for (int i = 0; i < seeds; i++) {
+			Concept c = new Concept();
+			c.setObjIntroducer(Integer.toString(1 + random.nextInt(formalContext.getNumberOfObjects())), formalContext);
+			introducers.add(c);
+		}
+
+		System.out.println("Name:\t\t\t\t\t" + path);
+
+		// Local generation
+
+		AOCPosetTraversal traversal = new AOCPosetTraversal(formalContext, threads);
+
+		long currentTime = System.currentTimeMillis();
+		AOCPoset poset = traversal.traverse(introducers);
+		long timeTraversal = System.currentTimeMillis() - currentTime;
+
+		traversal.shutdown();
+
+		for (int l = 0; l < traversal.getLevels().size(); l++) {
+			System.out.println("Level " + l + ":\t\t\t\t" + traversal.getLevels().get(l));
+		}
+
+		System.out.println("Traversal (" + threads + " threads):\t\t" + poset + " in " + timeTraversal + " ms");
+
+		// Global computation of the introducers and of their edges
+
+		currentTime = System.currentTimeMillis();
+		AOCPoset reference = hasseDiagram(formalContext);
+		long timeReference = System.currentTimeMillis() - currentTime;
+
+		System.out.println("Brute force:\t\t\t\t" + reference + " in " + timeReference + " ms");
+
+		HashSet<String> reached = new HashSet<String>();
+
+		for (int i = 0; i < poset.getNumberOfConcepts(); i++) {
+			reached.add(poset.getRegistry().getConcept(i).getKey());
+		}
+
+		int missing = 0;
+
+		for (int i = 0; i < reference.getNumberOfConcepts(); i++) {
+			if (!reached.contains(reference.getRegistry().getConcept(i).getKey())) {
+				missing++;
+			}
+		}
+
+		System.out.println("Introducers not reached:\t\t" + missing);
+
+		// Edges of the Hasse diagram missed by the traversal, and edges found by the traversal only
+
+		HashSet<String> found = edges(poset);
+		HashSet<String> expected = edges(reference);
+
+		HashSet<String> missingEdges = new HashSet<String>(expected);
+		missingEdges.removeAll(found);
+
+		HashSet<String> extraEdges = new HashSet<String>(found);
+		extraEdges.removeAll(expected);
+
+		System.out.println("Edges missing / extra:\t\t\t" + missingEdges.size() + " / " + extraEdges.size());
+	}
+}
@@ -0,0 +1,186 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is the default closure engine: it intersects the bitsets of the incidence relation of FormalContext
+ * with ClosureKernels.
+ *
+ * The closure of a set of attributes intersects the closures of its attributes (one bitset of objects per attribute),
+ * the closure of a set of objects intersects their attribute sets (one bitset of attributes per object).
+ * Introducer tests compare bitsets instead of lists.
+ *
+ */
+public class BitsetClosureEngine implements ClosureEngine {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Name of the engine
+	 */
+	public static final String NAME = "bitset";
+
+	/**
+	 * Formal context of the closures
+	 */
+	private FormalContext formalContext;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates the engine of a formal context.
+	 *
+	 * @param formalContext a formal context
+	 */
+	public BitsetClosureEngine(FormalContext formalContext) {
+		this.formalContext = formalContext;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public ArrayList<String> attClosure(String att) {
+		return ClosureKernels.toIds(formalContext.extentOf(att));
+	}
+
+	@Override
+	public ArrayList<String> objClosure(String obj) {
+
+		ArrayList<String> closure = new ArrayList<String>();
+
+		Arrays
+		.stream(formalContext.getObjectAtIndex(Integer.parseInt(obj) - 1).split(";"))
+		.forEach(closure::add);
+
+		return closure;
+	}
+
+	@Override
+	public ArrayList<String> setAttClosure(ArrayList<String> att) {
+
+		// Intersects the closures of the attributes, starting from all the objects
+		// On large formal contexts, the objects are split in ranges intersected in parallel
+
+		ArrayList<long[]> closures = new ArrayList<long[]>();
+
+		for (String a : att) {
+			closures.add(formalContext.extentOf(a));
+		}
+
+		return ClosureKernels.toIds(ClosureKernels.intersection(formalContext.getNumberOfObjects(), closures));
+	}
+
+	@Override
+	public ArrayList<String> setObjClosure(ArrayList<String> obj) {
+
+		// Intersects the attribute sets of the objects, starting from all the attributes
+
+		ArrayList<long[]> sets = new ArrayList<long[]>();
+
+		for (String o : obj) {
+			int i = formalContext.indexOfObject(o);
+			if (i >= 0) {
+				sets.add(formalContext.intentOf(i));
+			}
+		}
+
+		return formalContext.attributeList(ClosureKernels.intersection(formalContext.getAttributes().size(), sets));
+	}
+
+	@Override
+	public ArrayList<ArrayList<String>> setAttClosures(List<ArrayList<String>> sets) {
+
+		// All the closures are intersected in one sweep over the objects (ClosureKernels.intersections)
+
+		ArrayList<ArrayList<long[]>> closures = new ArrayList<ArrayList<long[]>>();
+
+		for (ArrayList<String> att : sets) {
+
+			ArrayList<long[]> c = new ArrayList<long[]>();
+
+			for (String a : att) {
+				c.add(formalContext.extentOf(a));
+			}
+			closures.add(c);
+		}
+
+		ArrayList<ArrayList<String>> result = new ArrayList<ArrayList<String>>();
+
+		for (long[] bits : ClosureKernels.intersections(formalContext.getNumberOfObjects(), closures)) {
+			result.add(ClosureKernels.toIds(bits));
+		}
+		return result;
+	}
+
+	@Override
+	public ArrayList<ArrayList<String>> setObjClosures(List<ArrayList<String>> sets) {
+
+		// All the attribute sets are intersected in one sweep over the attributes (ClosureKernels.intersections)
+
+		ArrayList<ArrayList<long[]>> intents = new ArrayList<ArrayList<long[]>>();
+
+		for (ArrayList<String> obj : sets) {
+
+			ArrayList<long[]> s = new ArrayList<long[]>();
+
+			for (String o : obj) {
+				int i = formalContext.indexOfObject(o);
+				if (i >= 0) {
+					s.add(formalContext.intentOf(i));
+				}
+			}
+			intents.add(s);
+		}
+
+		ArrayList<ArrayList<String>> result = new ArrayList<ArrayList<String>>();
+
+		for (long[] bits : ClosureKernels.intersections(formalContext.getAttributes().size(), intents)) {
+			result.add(formalContext.attributeList(bits));
+		}
+		return result;
+	}
+
+	@Override
+	public boolean isAttIntroducedIn(String att, Concept c) {
+
+		long[] extent = ClosureKernels.create(formalContext.getNumberOfObjects(), false);
+
+		// An object outside the formal context is in no closure
+
+		for (String o : c.getExtent()) {
+			int i = formalContext.indexOfObject(o);
+			if (i < 0) {
+				return false;
+			}
+			ClosureKernels.set(extent, i);
+		}
+
+		return ClosureKernels.equals(formalContext.extentOf(att), extent);
+	}
+
+	@Override
+	public boolean isObjIntroducedIn(String obj, Concept c) {
+
+		// An attribute outside the formal context is in no closure
+
+		for (String a : c.getIntent()) {
+			if (!formalContext.hasAttribute(a)) {
+				return false;
+			}
+		}
+
+		return ClosureKernels.equals(formalContext.intentOf(formalContext.indexOfObject(obj)), formalContext.attributeSet(c.getIntent()));
+	}
+}
@@ -0,0 +1,395 @@
+package localGen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class fills a NeighbourhoodCache in the background right after a formal context is loaded,
+ * so that the first queries do not all pay for the computation of their neighbourhood.
+ *
+ * The neighbourhoods are warmed in the order of their expected number of queries:
+ * - by default, the introducers of the attributes of highest support and of the objects having the most attributes,
+ * which are the concepts of the AOC-poset with the most neighbours, and thus the ones most often reached;
+ * - if a trace of past queries is given (see prioritize()), the concepts of the trace first, the most queried first.
+ *
+ * The warm-up runs on daemon threads of minimum priority, each keeping the closures and introducers of its previous
+ * neighbourhoods (as a NeighbourhoodWalk does). It stops when all the targets are warm, when its time budget is spent,
+ * when it has added its maximum number of neighbourhoods, or when the cache is full: it never evicts a neighbourhood.
+ * Queries made meanwhile are answered by the cache as usual, from the neighbourhoods already warm.
+ *
+ */
+public class CacheWarmer {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * A concept to warm: the introducer of an attribute or of an object, or a concept of a trace
+	 */
+	private static class Target implements Comparable<Target> {
+
+		private double priority;
+		private String att;
+		private String obj;
+		private Concept concept;
+
+		@Override
+		public int compareTo(Target t) {
+			return Double.compare(t.priority, priority);
+		}
+	}
+
+	/**
+	 * Formal context and cache warmed
+	 */
+	private FormalContext formalContext;
+	private NeighbourhoodCache cache;
+
+	/**
+	 * Targets, by decreasing priority, and index of the next one
+	 */
+	private ArrayList<Target> targets = new ArrayList<Target>();
+	private AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * Threads of the warm-up
+	 */
+	private Thread[] workers = new Thread[0];
+	private volatile boolean stopped;
+
+	/**
+	 * Budgets: the deadline (as given by System.nanoTime()) and the maximum number of neighbourhoods added
+	 */
+	private long deadline;
+	private int maxEntries;
+
+	/**
+	 * Statistics
+	 */
+	private AtomicInteger warmed = new AtomicInteger();
+	private AtomicInteger dropped = new AtomicInteger();
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates the warm-up of a cache, targeting the introducers of all the attributes and objects of its formal context,
+	 * by decreasing number of objects (attributes) relative to the number of objects (attributes) of the formal context.
+	 *
+	 * @param formalContext a formal context
+	 * @param cache a cache of the neighbourhoods of formalContext
+	 */
+	public CacheWarmer(FormalContext formalContext, NeighbourhoodCache cache) {
+
+		this.formalContext = formalContext;
+		this.cache = cache;
+
+		List<String> attributes = formalContext.getAttributes();
+		int n = formalContext.getNumberOfObjects();
+
+		for (String a : attributes) {
+			Target t = new Target();
+			t.att = a;
+			t.priority = (double) formalContext.getSupport(a) / Math.max(1, n);
+			targets.add(t);
+		}
+
+		for (int o = 0; o < n; o++) {
+			Target t = new Target();
+			t.obj = Integer.toString(o + 1);
+			t.priority = (double) ClosureKernels.cardinality(formalContext.intentOf(o)) / Math.max(1, attributes.size());
+			targets.add(t);
+		}
+
+		Collections.sort(targets);
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the number of concepts to warm (introducers shared by several attributes or objects are counted once per attribute or object).
+	 */
+	public int getTargets() {
+		return targets.size();
+	}
+
+	/**
+	 * Returns the number of neighbourhoods added to the cache.
+	 */
+	public int getWarmed() {
+		return warmed.get();
+	}
+
+	/**
+	 * Returns the number of neighbourhoods not added, because they were already in the cache or not computed within the budget.
+	 */
+	public int getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Returns true if the warm-up is over, or not started.
+	 */
+	public boolean isDone() {
+
+		for (Thread w : workers) {
+			if (w.isAlive()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Warms the concepts queried in a trace before the other targets, the most queried first.
+	 * Must be called before start().
+	 *
+	 * @param trace a trace recorded on the same formal context
+	 * @throws IllegalArgumentException if the trace was recorded on another formal context
+	 */
+	public void prioritize(QueryTrace trace) {
+
+		if (!trace.getFingerprint().equals(formalContext.getFingerprint())) {
+			throw new IllegalArgumentException("The trace was recorded on another formal context: " + trace.getSource());
+		}
+
+		// Number of queries of each extent
+
+		HashMap<List<Integer>, Integer> counts = new HashMap<List<Integer>, Integer>();
+
+		for (QueryTrace.Query q : trace.getQueries()) {
+			if (q.getKind() == QueryTrace.NEIGHBOURHOOD) {
+				counts.merge(Arrays.asList(Arrays.stream(q.getElements()).boxed().toArray(Integer[]::new)), 1, Integer::sum);
+			}
+		}
+
+		// Placed before the other targets, whose priority is at most 1
+
+		for (List<Integer> indexes : counts.keySet()) {
+
+			ArrayList<String> extent = new ArrayList<String>();
+
+			for (int i : indexes) {
+				extent.add(Integer.toString(i + 1));
+			}
+
+			Target t = new Target();
+			t.concept = new Concept(formalContext.setObjClosure(extent), extent);
+			t.priority = 1 + counts.get(indexes);
+			targets.add(t);
+		}
+
+		Collections.sort(targets);
+	}
+
+	/**
+	 * Starts the warm-up in the background, and returns at once.
+	 *
+	 * @param threads the number of threads
+	 * @param millis the time budget of the warm-up in milliseconds
+	 * @param maxEntries the maximum number of neighbourhoods added to the cache
+	 */
+	public synchronized void start(int threads, long millis, int maxEntries) {
+
+		if (!isDone()) {
+			throw new IllegalStateException("The warm-up is already running");
+		}
+
+		this.deadline = System.nanoTime() + millis * 1000000;
+		this.maxEntries = maxEntries;
+		this.stopped = false;
+		this.workers = new Thread[threads];
+
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread(this::run, "cache-warmer-" + i);
+			workers[i].setDaemon(true);
+			workers[i].setPriority(Thread.MIN_PRIORITY);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Stops the warm-up: the neighbourhoods being computed are dropped. The neighbourhoods already warm stay in the cache.
+	 */
+	public void stop() {
+
+		stopped = true;
+
+		for (Thread w : workers) {
+			w.interrupt();
+		}
+	}
+
+	/**
+	 * Waits for the end of the warm-up.
+	 *
+	 * @param millis the maximum time to wait in milliseconds
+	 * @return true if the warm-up is over
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public boolean awaitTermination(long millis) throws InterruptedException {
+
+		long end = System.nanoTime() + millis * 1000000;
+
+		for (Thread w : workers) {
+			w.join(Math.max(1, (end - System.nanoTime()) / 1000000));
+		}
+		return isDone();
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Warms the next targets until a budget is spent.
+	 */
+	private void run() {
+
+		TestLocalGen.Introducers introducers = new TestLocalGen.Introducers(formalContext, NeighbourhoodWalk.MAX_ENTRIES);
+
+		int i;
+
+		while (!stopped && (i = next.getAndIncrement()) < targets.size()) {
+
+			long remaining = (deadline - System.nanoTime()) / 1000000;
+
+			if (remaining <= 0 || warmed.get() >= maxEntries || cache.size() >= cache.getMaxEntries()) {
+				break;
+			}
+
+			// The introducer is computed here, so that its closures are also part of the warm-up
+
+			Target t = targets.get(i);
+			Concept c = t.concept;
+
+			if (c == null) {
+				c = new Concept();
+				if (t.att != null) {
+					c.setAttIntroducer(t.att, formalContext);
+				} else {
+					c.setObjIntroducer(t.obj, formalContext);
+				}
+			}
+
+			// The top concept is skipped, as by TestLocalGen
+
+			if (c.getIntent().isEmpty() || c.getIntent().contains("")) {
+				continue;
+			}
+
+			if (cache.warm(c, introducers, QueryBudget.ofMillis(remaining))) {
+				warmed.incrementAndGet();
+			} else {
+				dropped.incrementAndGet();
+			}
+		}
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Compares the latencies of the first queries made to a cache, cold and while warming up, and checks the neighbourhoods answered
+	 * during warm-up against neighbourhoods computed from scratch. The queries are the introducers of random objects, as in TestLocalGen.
+	 *
+	 * @param args the path of a variant list (relative to "data/"), the time budget of the warm-up in milliseconds,
+	 * the delay before the first query in milliseconds, the number of queries, and optionally a trace to prioritize
+	 */
+	public static void main(String[] args) throws InterruptedException, IOException {
+
+		String path = args.length > 0 ? args[0] : "fork-insight/2048/output.txt";
+		long millis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+		long delay = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+		int size = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+		FormalContext formalContext = new FormalContext(path);
+
+		// The same queries, cold then during warm-up
+
+		Random random = new Random(42);
+		ArrayList<Concept> queries = new ArrayList<Concept>();
+
+		while (queries.size() < size) {
+			Concept c = new Concept();
+			c.setObjIntroducer(Integer.toString(1 + random.nextInt(formalContext.getNumberOfObjects())), formalContext);
+			if (!c.getIntent().isEmpty() && !c.getIntent().contains("")) {
+				queries.add(c);
+			}
+		}
+
+		System.out.println("Name:\t\t\t\t\t" + path);
+
+		for (boolean warm : new boolean[] { false, true }) {
+
+			NeighbourhoodCache cache = new NeighbourhoodCache(formalContext, 10000);
+			CacheWarmer warmer = new CacheWarmer(formalContext, cache);
+
+			if (warm) {
+				if (args.length > 4) {
+					warmer.prioritize(new QueryTrace(args[4]));
+				}
+				warmer.start(Runtime.getRuntime().availableProcessors(), millis, Integer.MAX_VALUE);
+			}
+
+			Thread.sleep(delay);
+
+			long[] latencies = new long[size];
+			int wrong = 0;
+
+			for (int i = 0; i < size; i++) {
+
+				long start = System.nanoTime();
+				Neighbourhood n = cache.neighbourhood(queries.get(i));
+				latencies[i] = System.nanoTime() - start;
+
+				if (!keys(n).equals(keys(Neighbourhood.compute(queries.get(i), formalContext)))) {
+					wrong++;
+				}
+			}
+
+			warmer.stop();
+			warmer.awaitTermination(millis);
+
+			long total = Arrays.stream(latencies).sum();
+			Arrays.sort(latencies);
+
+			System.out.println(warm ? "With warm-up (" + millis + " ms budget, " + warmer.getWarmed() + " neighbourhoods warmed)" : "Cold");
+			System.out.println(String.format("First %d queries p50 / p99 / total:\t%.2f / %.2f / %.0f ms", size,
+					latencies[size / 2] / 1e6, latencies[size * 99 / 100] / 1e6, total / 1e6));
+			System.out.println("Read from the cache:\t\t\t" + cache.getHits() + " / " + size);
+			System.out.println("Neighbourhoods differing from scratch:\t" + wrong);
+		}
+	}
+
+	/**
+	 * Returns the keys of the concepts of the covers of a neighbourhood, in order.
+	 */
+	private static TreeSet<String> keys(Neighbourhood n) {
+
+		TreeSet<String> keys = new TreeSet<String>();
+
+		for (Concept c : n.getUpperCover().getConcepts()) {
+			keys.add("+" + c.getKey());
+		}
+		for (Concept c : n.getLowerCover().getConcepts()) {
+			keys.add("-" + c.getKey());
+		}
+		return keys;
+	}
+}
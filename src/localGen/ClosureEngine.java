@@ -0,0 +1,151 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This interface gathers the closure operations of a formal context, so that their implementation can be chosen at runtime.
+ *
+ * Three engines are available:
+ * - regex matches the attribute sets of the objects with regular expressions, as the first implementation of FormalContext did,
+ *   and is kept as the reference;
+ * - bitset packs the incidence relation into bitsets and uses ClosureKernels (default);
+ * - dual also keeps the transposed incidence relation, and computes each closure of a set on the cheaper side.
+ *
+ * The engine of a formal context is read from the system property localGen.engine, or set with FormalContext.setEngine().
+ * All the engines must give the same answers, which ClosureEngineChecker verifies.
+ *
+ */
+public interface ClosureEngine {
+
+	/**
+	 * Returns the name of the engine, as given to create().
+	 *
+	 * @return regex, bitset or dual
+	 */
+	String getName();
+
+	/**
+	 * Computes the closure of an attribute: the objects having it.
+	 *
+	 * @param att an attribute
+	 * @return the ids of the objects having att, in increasing order
+	 */
+	ArrayList<String> attClosure(String att);
+
+	/**
+	 * Computes the closure of an object: its attribute set.
+	 *
+	 * @param obj an object id
+	 * @return the attributes of the object
+	 */
+	ArrayList<String> objClosure(String obj);
+
+	/**
+	 * Computes the closure of a set of attributes: the objects having all of them.
+	 *
+	 * @param att a list of attributes
+	 * @return the ids of the objects having all the attributes of att, in increasing order
+	 */
+	ArrayList<String> setAttClosure(ArrayList<String> att);
+
+	/**
+	 * Computes the closure of a set of objects: the attributes shared by all of them.
+	 *
+	 * @param obj a list of object ids
+	 * @return the attributes shared by the objects, in the order of the list of attributes
+	 */
+	ArrayList<String> setObjClosure(ArrayList<String> obj);
+
+	/**
+	 * Computes the closures of several sets of attributes. By default, they are computed one by one.
+	 *
+	 * @param sets lists of attributes
+	 * @return the closure of each list, in the order of sets
+	 */
+	default ArrayList<ArrayList<String>> setAttClosures(List<ArrayList<String>> sets) {
+
+		ArrayList<ArrayList<String>> closures = new ArrayList<ArrayList<String>>();
+
+		for (ArrayList<String> att : sets) {
+			closures.add(setAttClosure(att));
+		}
+		return closures;
+	}
+
+	/**
+	 * Computes the closures of several sets of objects. By default, they are computed one by one.
+	 *
+	 * @param sets lists of object ids
+	 * @return the closure of each list, in the order of sets
+	 */
+	default ArrayList<ArrayList<String>> setObjClosures(List<ArrayList<String>> sets) {
+
+		ArrayList<ArrayList<String>> closures = new ArrayList<ArrayList<String>>();
+
+		for (ArrayList<String> obj : sets) {
+			closures.add(setObjClosure(obj));
+		}
+		return closures;
+	}
+
+	/**
+	 * Returns true if the extent of the concept c is the closure of the attribute att.
+	 *
+	 * @param att an attribute
+	 * @param c a concept
+	 * @return true if c introduces att
+	 */
+	boolean isAttIntroducedIn(String att, Concept c);
+
+	/**
+	 * Returns true if the intent of the concept c is the closure of the object obj.
+	 *
+	 * @param obj an object id
+	 * @param c a concept
+	 * @return true if c introduces obj
+	 */
+	boolean isObjIntroducedIn(String obj, Concept c);
+
+	/**
+	 * Creates the engine of the specified name on a formal context.
+	 *
+	 * @param name regex, bitset or dual
+	 * @param formalContext the formal context
+	 * @return the engine
+	 * @throws IllegalArgumentException if there is no engine of this name
+	 */
+	static ClosureEngine create(String name, FormalContext formalContext) {
+
+		switch (name) {
+
+		case RegexClosureEngine.NAME:
+			return new RegexClosureEngine(formalContext);
+
+		case BitsetClosureEngine.NAME:
+			return new BitsetClosureEngine(formalContext);
+
+		case DualClosureEngine.NAME:
+			return new DualClosureEngine(formalContext);
+
+		default:
+			throw new IllegalArgumentException("Unknown closure engine: " + name);
+		}
+	}
+
+	/**
+	 * Creates the engine of the next version of a formal context, of the same kind as the engine of the previous version.
+	 * The dual engine extends the transposed view of the previous version, if built, instead of building it again.
+	 *
+	 * @param previous the engine of the previous version
+	 * @param formalContext the next version
+	 * @return the engine
+	 */
+	static ClosureEngine next(ClosureEngine previous, FormalContext formalContext) {
+
+		if (previous instanceof DualClosureEngine) {
+			return new DualClosureEngine(formalContext, (DualClosureEngine) previous);
+		}
+		return create(previous.getName(), formalContext);
+	}
+}
@@ -0,0 +1,225 @@
+package localGen;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * This class runs the reference closure engine (regex) and another engine side by side on the same formal context,
+ * and reports the operations on which they do not give the same answer.
+ *
+ * On each formal context, the engines compute the closures of sampled attributes and objects, the introducers of these
+ * attributes and objects, and test whether sampled concepts introduce them.
+ *
+ */
+public class ClosureEngineChecker {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Number of mismatches printed per formal context
+	 */
+	private static final int PRINTED = 5;
+
+	/**
+	 * Reference engine and checked engine
+	 */
+	private ClosureEngine reference;
+	private ClosureEngine engine;
+
+	/**
+	 * Number of operations compared and number of mismatches
+	 */
+	private int checks;
+	private int mismatches;
+
+	/**
+	 * Time spent in each engine, in nanoseconds
+	 */
+	private long referenceTime;
+	private long engineTime;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates a checker of the engine of the specified name on a formal context, against the regex engine.
+	 *
+	 * @param formalContext a formal context
+	 * @param name the name of the checked engine
+	 */
+	public ClosureEngineChecker(FormalContext formalContext, String name) {
+		this.reference = new RegexClosureEngine(formalContext);
+		this.engine = ClosureEngine.create(name, formalContext);
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the number of operations compared.
+	 */
+	public int getChecks() {
+		return checks;
+	}
+
+	/**
+	 * Returns the number of operations on which the engines differ.
+	 */
+	public int getMismatches() {
+		return mismatches;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Compares the engines on attributes and objects of the formal context, drawn with a seeded random generator.
+	 *
+	 * @param formalContext the formal context of the engines
+	 * @param samples the number of attributes and of objects drawn, or 0 to check all of them
+	 * @param seed the seed of the random generator
+	 */
+	public void check(FormalContext formalContext, int samples, long seed) {
+
+		Random random = new Random(seed);
+
+		List<String> attributes = formalContext.getAttributes();
+		int n = formalContext.getNumberOfObjects();
+
+		ArrayList<String> att = new ArrayList<String>();
+		ArrayList<String> obj = new ArrayList<String>();
+
+		for (int i = 0; i < (samples == 0 ? attributes.size() : samples); i++) {
+			att.add(samples == 0 ? attributes.get(i) : attributes.get(random.nextInt(attributes.size())));
+		}
+
+		for (int i = 0; i < (samples == 0 ? n : samples); i++) {
+			obj.add(Integer.toString(samples == 0 ? i + 1 : 1 + random.nextInt(n)));
+		}
+
+		for (String a : att) {
+
+			compare("attClosure(" + a + ")", e -> e.attClosure(a));
+
+			// The introducer of a, as computed by the reference
+
+			ArrayList<String> extent = reference.attClosure(a);
+			Concept introducer = new Concept(reference.setObjClosure(extent), extent);
+
+			compare("setObjClosure(attClosure(" + a + "))", e -> e.setObjClosure(extent));
+			compare("isAttIntroducedIn(" + a + ", " + introducer + ")", e -> e.isAttIntroducedIn(a, introducer));
+
+			String o = obj.get(random.nextInt(obj.size()));
+			compare("isObjIntroducedIn(" + o + ", " + introducer + ")", e -> e.isObjIntroducedIn(o, introducer));
+		}
+
+		for (String o : obj) {
+
+			compare("objClosure(" + o + ")", e -> e.objClosure(o));
+
+			// The introducer of o, as computed by the reference
+
+			ArrayList<String> intent = reference.objClosure(o);
+			Concept introducer = new Concept(intent, reference.setAttClosure(intent));
+
+			compare("setAttClosure(objClosure(" + o + "))", e -> e.setAttClosure(intent));
+			compare("isObjIntroducedIn(" + o + ", " + introducer + ")", e -> e.isObjIntroducedIn(o, introducer));
+
+			String a = att.get(random.nextInt(att.size()));
+			compare("isAttIntroducedIn(" + a + ", " + introducer + ")", e -> e.isAttIntroducedIn(a, introducer));
+		}
+	}
+
+	/**
+	 * Returns a summary of the comparison.
+	 */
+	public String toString() {
+		return String.format("%s vs %s: %d operations, %d mismatches, %d ms vs %d ms", engine.getName(), reference.getName(),
+				checks, mismatches, engineTime / 1000000, referenceTime / 1000000);
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Runs an operation on both engines, and reports it if their answers differ.
+	 */
+	private void compare(String operation, Function<ClosureEngine, Object> op) {
+
+		long start = System.nanoTime();
+		Object expected = op.apply(reference);
+		long middle = System.nanoTime();
+		Object actual = op.apply(engine);
+		long end = System.nanoTime();
+
+		referenceTime += middle - start;
+		engineTime += end - middle;
+		checks++;
+
+		if (!Objects.equals(expected, actual)) {
+
+			if (mismatches < PRINTED) {
+				System.err.println("Mismatch on " + operation + ":\n\t" + reference.getName() + ": " + expected + "\n\t" + engine.getName() + ": " + actual);
+			}
+			mismatches++;
+		}
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Checks an engine against the reference on every variant list of data/fork-insight.
+	 * Exits with the status 1 if the engines differ on one of them.
+	 *
+	 * @param args the name of the checked engine, the number of sampled attributes and objects (0 for all) and the seed
+	 */
+	public static void main(String[] args) {
+
+		String name = args.length > 0 ? args[0] : BitsetClosureEngine.NAME;
+		int samples = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+		File[] directories = new File("data/fork-insight").listFiles(File::isDirectory);
+		Arrays.sort(directories);
+
+		int failed = 0;
+
+		for (File directory : directories) {
+
+			if (!new File(directory, "output.txt").exists()) {
+				continue;
+			}
+
+			String path = "fork-insight/" + directory.getName() + "/output.txt";
+
+			FormalContext formalContext = new FormalContext(path);
+
+			ClosureEngineChecker checker = new ClosureEngineChecker(formalContext, name);
+			checker.check(formalContext, samples, seed);
+
+			System.out.println(String.format("%-48s%s", path, checker));
+
+			if (checker.getMismatches() > 0) {
+				failed++;
+			}
+		}
+
+		System.out.println(failed == 0 ? "All the engines agree." : failed + " variant lists with mismatches.");
+
+		if (failed > 0) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,489 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class gathers the data-parallel kernels used by the closure operations of FormalContext.
+ *
+ * Object sets and attribute sets are packed in bitsets (arrays of longs): bit i of word i/64 is set if the i-th element is in the set.
+ * Two bitsets of the same elements may have different lengths: the words missing at the end of the shorter one are empty.
+ * The versions of a formal context thus share the bitsets created before their new objects and attributes.
+ *
+ * Two implementations are available, selected at runtime:
+ * - SCALAR processes the words one at a time in plain loops, and is the fallback;
+ * - VECTOR processes several words at once with the Vector API (jdk.incubator.vector), in VectorKernels.
+ *
+ * VectorKernels is compiled apart, from src-vector with --add-modules jdk.incubator.vector, and loaded by reflection:
+ * when it is missing, or when the JVM is run without --add-modules jdk.incubator.vector, the kernels fall back to SCALAR.
+ * The mode is read from the system property localGen.kernels (scalar or vector, vector by default when available).
+ *
+ * Intersections and conversions of bitsets of at least parallelThreshold elements are split by ranges of words
+ * on the common fork-join pool, and the partial results are merged in order.
+ * The threshold is read from the system property localGen.parallelThreshold (131072 elements by default).
+ *
+ */
+public class ClosureKernels {
+
+	/**
+	 * Implementations of the kernels
+	 */
+	public enum Mode { SCALAR, VECTOR }
+
+	/**
+	 * Kernels on a range of words, implemented by VectorKernels
+	 */
+	interface Kernels {
+
+		/**
+		 * Intersects the range of words [from, to) of acc with b, both having at least to words.
+		 */
+		void and(long[] acc, long[] b, int from, int to);
+
+		/**
+		 * Returns true if the n first words of a are included in those of b.
+		 */
+		boolean isSubset(long[] a, long[] b, int n);
+	}
+
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Vector API kernels, null if they cannot be loaded
+	 */
+	private static final Kernels VECTOR_KERNELS = loadVectorKernels();
+
+	/**
+	 * Current implementation of the kernels
+	 */
+	private static volatile Mode mode =
+			"scalar".equalsIgnoreCase(System.getProperty("localGen.kernels")) || VECTOR_KERNELS == null ? Mode.SCALAR : Mode.VECTOR;
+
+	/**
+	 * Minimum number of elements of a bitset processed in parallel
+	 */
+	private static volatile int parallelThreshold = Integer.getInteger("localGen.parallelThreshold", 1 << 17);
+
+	/**
+	 * Minimum number of words of a range processed by one task
+	 */
+	private static final int LEAF_WORDS = 1 << 10;
+
+	/**
+	 * Number of words of the blocks swept by intersections(), small enough for a block of a result and of its bitsets to stay in cache
+	 */
+	private static final int BLOCK_WORDS = 1 << 10;
+
+	/**
+	 * Intersects the bitsets sets over the range of words [from, to) of acc
+	 */
+	private static class IntersectionTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private long[] acc;
+		private List<long[]> sets;
+		private int from;
+		private int to;
+
+		private IntersectionTask(long[] acc, List<long[]> sets, int from, int to) {
+			this.acc = acc;
+			this.sets = sets;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (to - from <= LEAF_WORDS) {
+				for (long[] b : sets) {
+					and(acc, b, from, to);
+				}
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new IntersectionTask(acc, sets, from, middle), new IntersectionTask(acc, sets, middle, to));
+		}
+	}
+
+	/**
+	 * Converts the range of words [from, to) of a bitset of objects into object ids
+	 */
+	private static class IdsTask extends RecursiveTask<ArrayList<String>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private long[] bits;
+		private int from;
+		private int to;
+
+		private IdsTask(long[] bits, int from, int to) {
+			this.bits = bits;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected ArrayList<String> compute() {
+
+			if (to - from <= LEAF_WORDS) {
+				return toIds(bits, from, to);
+			}
+
+			int middle = (from + to) >>> 1;
+
+			IdsTask right = new IdsTask(bits, middle, to);
+			right.fork();
+
+			// The ids of the left range come first
+
+			ArrayList<String> ids = new IdsTask(bits, from, middle).compute();
+			ids.addAll(right.join());
+
+			return ids;
+		}
+	}
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	private ClosureKernels() {
+
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the current implementation of the kernels.
+	 *
+	 * @return SCALAR or VECTOR
+	 */
+	public static Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Switches the implementation of the kernels. VECTOR is ignored when the Vector API kernels are not available.
+	 *
+	 * @param m SCALAR or VECTOR
+	 */
+	public static void setMode(Mode m) {
+		mode = m == Mode.VECTOR && VECTOR_KERNELS == null ? Mode.SCALAR : m;
+	}
+
+	/**
+	 * Returns true if the Vector API kernels are available, i.e., if VectorKernels is compiled
+	 * and the JVM is run with --add-modules jdk.incubator.vector.
+	 */
+	public static boolean isVectorAvailable() {
+		return VECTOR_KERNELS != null;
+	}
+
+	/**
+	 * Returns the minimum number of elements of a bitset processed in parallel.
+	 */
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Sets the minimum number of elements of a bitset processed in parallel.
+	 *
+	 * @param threshold a number of elements (Integer.MAX_VALUE to always process bitsets sequentially)
+	 */
+	public static void setParallelThreshold(int threshold) {
+		parallelThreshold = threshold;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Creates a bitset able to contain size elements.
+	 *
+	 * @param size the number of elements
+	 * @param full true to fill the bitset, false to leave it empty
+	 * @return the bitset
+	 */
+	public static long[] create(int size, boolean full) {
+
+		long[] bits = new long[(size + 63) >>> 6];
+
+		if (full) {
+			for (int i = 0; i < bits.length; i++) {
+				bits[i] = -1L;
+			}
+			if ((size & 63) != 0) {
+				bits[bits.length - 1] = -1L >>> (64 - (size & 63));
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * Adds the i-th element in the bitset.
+	 */
+	public static void set(long[] bits, int i) {
+		bits[i >>> 6] |= 1L << i;
+	}
+
+	/**
+	 * Returns true if the i-th element is in the bitset.
+	 */
+	public static boolean get(long[] bits, int i) {
+		return i >>> 6 < bits.length && (bits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * Intersects acc with b: acc receives acc AND b.
+	 *
+	 * @param acc the bitset receiving the intersection
+	 * @param b a bitset of the same elements
+	 */
+	public static void and(long[] acc, long[] b) {
+		and(acc, b, 0, acc.length);
+	}
+
+	/**
+	 * Returns true if the bitsets a and b contain the same elements, whatever their lengths.
+	 *
+	 * @param a a bitset
+	 * @param b a bitset of the same elements
+	 * @return true if a and b are equal
+	 */
+	public static boolean equals(long[] a, long[] b) {
+		return isSubset(a, b) && isSubset(b, a);
+	}
+
+	/**
+	 * Returns the intersection of the bitsets sets, starting from the set of all the size elements.
+	 * Over parallelThreshold elements, the words are split in ranges intersected in parallel.
+	 *
+	 * @param size the number of elements
+	 * @param sets bitsets of the same elements
+	 * @return a new bitset
+	 */
+	public static long[] intersection(int size, List<long[]> sets) {
+
+		long[] acc = create(size, true);
+
+		if (size < parallelThreshold || acc.length <= LEAF_WORDS) {
+			for (long[] b : sets) {
+				and(acc, b);
+			}
+		} else {
+			ForkJoinPool.commonPool().invoke(new IntersectionTask(acc, sets, 0, acc.length));
+		}
+		return acc;
+	}
+
+	/**
+	 * Returns the intersections of several lists of bitsets, each starting from the set of all the size elements.
+	 *
+	 * The lists are answered together, in one sweep over blocks of words: the block of each list is intersected in turn,
+	 * so that the blocks of the bitsets shared by several lists are read from memory once, and then from the cache.
+	 * The memory traffic thus depends on the number of distinct bitsets, not on the number of lists.
+	 *
+	 * @param size the number of elements
+	 * @param sets lists of bitsets of the same elements
+	 * @return a new bitset per list, in the order of sets
+	 */
+	public static ArrayList<long[]> intersections(int size, List<? extends List<long[]>> sets) {
+
+		ArrayList<long[]> results = new ArrayList<long[]>();
+
+		for (List<long[]> list : sets) {
+			results.add(create(size, list.isEmpty()));
+		}
+
+		int words = (size + 63) >>> 6;
+
+		for (int from = 0; from < words; from += BLOCK_WORDS) {
+
+			int to = Math.min(from + BLOCK_WORDS, words);
+
+			for (int q = 0; q < results.size(); q++) {
+
+				List<long[]> list = sets.get(q);
+
+				if (list.isEmpty()) {
+					continue;
+				}
+
+				// The block of the result starts as the block of the first bitset, instead of being filled then intersected
+				// The words missing in a shorter bitset are left empty
+
+				long[] acc = results.get(q);
+				long[] first = list.get(0);
+
+				if (from < first.length) {
+					System.arraycopy(first, from, acc, from, Math.min(to, first.length) - from);
+				}
+
+				for (int k = 1; k < list.size(); k++) {
+					and(acc, list.get(k), from, to);
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Returns true if the set a is included in the set b.
+	 *
+	 * @param a a bitset
+	 * @param b a bitset of the same elements
+	 * @return true if each element of a is in b
+	 */
+	public static boolean isSubset(long[] a, long[] b) {
+
+		int n = Math.min(a.length, b.length);
+
+		if (mode == Mode.SCALAR ? !scalarIsSubset(a, b, n) : !VECTOR_KERNELS.isSubset(a, b, n)) {
+			return false;
+		}
+		return isEmptyFrom(a, n);
+	}
+
+	/**
+	 * Returns the number of elements of the bitset.
+	 */
+	public static int cardinality(long[] bits) {
+		int c = 0;
+		for (long w : bits) {
+			c += Long.bitCount(w);
+		}
+		return c;
+	}
+
+	/**
+	 * Returns the elements of the bitset.
+	 *
+	 * @param bits a bitset
+	 * @return the indexes of its elements, in increasing order
+	 */
+	public static int[] toIndexes(long[] bits) {
+
+		int[] indexes = new int[cardinality(bits)];
+		int k = 0;
+
+		for (int w = 0; w < bits.length; w++) {
+			long word = bits[w];
+			while (word != 0) {
+				indexes[k++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return indexes;
+	}
+
+	/**
+	 * Converts a bitset of objects into a list of object ids, i.e., their index in the list of objects plus one.
+	 *
+	 * @param bits a bitset of objects
+	 * @return the ids of the objects, in increasing order
+	 */
+	public static ArrayList<String> toIds(long[] bits) {
+
+		if ((long) bits.length << 6 < parallelThreshold || bits.length <= LEAF_WORDS) {
+			return toIds(bits, 0, bits.length);
+		}
+		return ForkJoinPool.commonPool().invoke(new IdsTask(bits, 0, bits.length));
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Converts the range of words [from, to) of a bitset of objects into object ids.
+	 */
+	private static ArrayList<String> toIds(long[] bits, int from, int to) {
+
+		ArrayList<String> ids = new ArrayList<String>();
+
+		for (int w = from; w < to; w++) {
+			long word = bits[w];
+			while (word != 0) {
+				ids.add(Integer.toString((w << 6) + Long.numberOfTrailingZeros(word) + 1));
+				word &= word - 1;
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Intersects the range of words [from, to) of acc with b. The words of the range missing in b are emptied.
+	 */
+	private static void and(long[] acc, long[] b, int from, int to) {
+
+		int end = Math.min(to, b.length);
+
+		if (mode == Mode.SCALAR) {
+			scalarAnd(acc, b, from, end);
+		} else {
+			VECTOR_KERNELS.and(acc, b, from, end);
+		}
+
+		for (int i = Math.max(from, end); i < to; i++) {
+			acc[i] = 0;
+		}
+	}
+
+	/**
+	 * Returns true if the words of a from the word from are empty.
+	 */
+	private static boolean isEmptyFrom(long[] a, int from) {
+
+		for (int i = from; i < a.length; i++) {
+			if (a[i] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void scalarAnd(long[] acc, long[] b, int from, int to) {
+		for (int i = from; i < to; i++) {
+			acc[i] &= b[i];
+		}
+	}
+
+	private static boolean scalarIsSubset(long[] a, long[] b, int n) {
+
+		for (int i = 0; i < n; i++) {
+			if ((a[i] & ~b[i]) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Loads the Vector API kernels.
+	 *
+	 * @return the kernels, or null if VectorKernels or the module jdk.incubator.vector is missing
+	 */
+	private static Kernels loadVectorKernels() {
+
+		try {
+			return Class.forName("localGen.VectorKernels").asSubclass(Kernels.class).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			if ("vector".equalsIgnoreCase(System.getProperty("localGen.kernels"))) {
+				System.err.println("Vector API kernels not available (" + e + "), scalar kernels used.");
+			}
+			return null;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package localGen;
 
 import java.util.ArrayList;
+import java.util.Collections;
 
 /**
  * This class represents a formal concept.
@@ -92,6 +93,21 @@ public class Concept {
 		 return extent;
 	}
 	
+	/**
+	 * Returns a key identifying the concept in its formal context: the number of objects of its extent followed by these objects, sorted.
+	 * The covers of a concept only depend on its extent. Its intent does not identify it: an attribute matches the attributes
+	 * of an object ending with it, so that two introducers may have the same intent and different extents.
+	 * 
+	 * @return a canonical representation of the extent
+	 */
+	public String getKey() {
+		
+		ArrayList<String> sorted = new ArrayList<String>(extent);
+		Collections.sort(sorted);
+		
+		return extent.size() + ":" + String.join(";", sorted);
+	}
+	
 	/**
 	 * Returns a String documenting the concept.
 	 */
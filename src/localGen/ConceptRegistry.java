@@ -0,0 +1,139 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * This class interns the concepts of a formal context: each distinct concept receives a stable id,
+ * given in the order in which the concepts are discovered, and a single canonical instance, which is never handed out.
+ *
+ * Concepts are identified by their key (see Concept.getKey()), so that a registry must only hold concepts of one formal context.
+ * A registry counts the references to each concept: a concept interned n times is dropped after n calls to release,
+ * so that the registry of a bounded cache stays bounded. The id of a dropped concept is not given again.
+ *
+ */
+public class ConceptRegistry {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Id of each concept, by key
+	 */
+	private HashMap<String, Integer> ids = new HashMap<String, Integer>();
+
+	/**
+	 * Canonical instance of each concept, by id
+	 */
+	private HashMap<Integer, Concept> concepts = new HashMap<Integer, Concept>();
+
+	/**
+	 * Number of references to each concept, by id
+	 */
+	private HashMap<Integer, Integer> references = new HashMap<Integer, Integer>();
+
+	/**
+	 * Id of the next concept discovered
+	 */
+	private int nextId;
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the number of distinct concepts registered.
+	 *
+	 * @return the number of concepts
+	 */
+	public synchronized int size() {
+		return concepts.size();
+	}
+
+	/**
+	 * Returns a copy of the concept of id id.
+	 *
+	 * @param id the id of a concept
+	 * @return a concept, or null if it is not registered
+	 */
+	public synchronized Concept getConcept(int id) {
+
+		Concept c = concepts.get(id);
+
+		return c == null ? null : new Concept(c.getIntent(), c.getExtent());
+	}
+
+	/**
+	 * Returns the id of the concept c, or -1 if it is not registered.
+	 *
+	 * @param c a concept
+	 * @return an id, or -1
+	 */
+	public synchronized int getId(Concept c) {
+		Integer id = ids.get(c.getKey());
+		return id == null ? -1 : id;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Registers the concept c if it is not registered yet, adds a reference to it, and returns its id.
+	 * The registry keeps a copy of c, so that c may be modified afterwards.
+	 *
+	 * @param c a concept
+	 * @return the id of c
+	 */
+	public synchronized int intern(Concept c) {
+
+		String key = c.getKey();
+		Integer id = ids.get(key);
+
+		if (id == null) {
+			id = nextId++;
+			ids.put(key, id);
+			concepts.put(id, new Concept(c.getIntent(), c.getExtent()));
+		}
+		references.merge(id, 1, Integer::sum);
+
+		return id;
+	}
+
+	/**
+	 * Registers the concepts of a cover, adding a reference to each of them. The cover is not modified.
+	 *
+	 * @param cover an upper or lower cover
+	 * @return the ids of its concepts
+	 */
+	public synchronized int[] intern(ConceptualCover cover) {
+
+		ArrayList<Concept> neighbours = cover.getConcepts();
+		int[] interned = new int[neighbours.size()];
+
+		for (int i = 0; i < neighbours.size(); i++) {
+			interned[i] = intern(neighbours.get(i));
+		}
+		return interned;
+	}
+
+	/**
+	 * Removes a reference to the concept of id id, and drops the concept when no reference is left.
+	 *
+	 * @param id the id of a registered concept
+	 */
+	public synchronized void release(int id) {
+
+		Integer count = references.get(id);
+
+		if (count == null) {
+			return;
+		}
+		if (count > 1) {
+			references.put(id, count - 1);
+		} else {
+			references.remove(id);
+			ids.remove(concepts.remove(id).getKey());
+		}
+	}
+}
@@ -46,6 +46,24 @@ public class ConceptualCover {
 		return neighbours.size();
 	}
 	
+	/**
+	 * Returns the neighbours
+	 * 
+	 * @return the list of direct super-concepts or sub-concepts
+	 */
+	public ArrayList<Concept> getConcepts() {
+		return neighbours;
+	}
+	
+	/**
+	 * Adds an already computed concept to the neighbours
+	 * 
+	 * @param c a concept
+	 */
+	public void addConcept(Concept c) {
+		neighbours.add(c);
+	}
+	
 	/**
 	 * Removes the concept having the attribute set i for intent from the neighbours
 	 * 
@@ -73,12 +91,12 @@ public class ConceptualCover {
 		
 		// Retrieves the concept from the neighbour set
 		
-		Concept c = getConceptByIntent(e);
+		Concept c = getConceptByExtent(e);
 		
 		// Removes the concept if it exists
 
 		if(c != null) {
-			neighbours.remove(getConceptByExtent(e));
+			neighbours.remove(c);
 		}
 	}	
 
@@ -91,19 +109,9 @@ public class ConceptualCover {
 	 */
 	public void addCandidateAC(String att) {
 		
-		// Checks if the attribute is not already corresponding to an attribute-concept
-		
-		boolean isCooccurrent = false;
-		
-		for (Concept c : neighbours) {
-			if (c.getIntent().contains(att)) {
-				isCooccurrent = true;
-			}
-		}
-		
 		// If the corresponding attribute-concept is not already in the neighbours, it is added.
 		
-		if (!isCooccurrent) {
+		if (!isCooccurrentAC(att)) {
 			
 			ArrayList<String> attClosure = new ArrayList<String>();
 			attClosure.addAll(formalContext.attClosure(att));
@@ -112,6 +120,20 @@ public class ConceptualCover {
 		}
 	}
 	
+	/**
+	 * Adds a candidate attribute-concept to the neighbours, whose concept has already been computed.
+	 * As in addCandidateAC(att), it is not added if the attribute is present in one of the current neighbours.
+	 * 
+	 * @param att the attribute introduced in the candidate attribute-concept
+	 * @param introducer the attribute-concept introducing att, which is copied
+	 */
+	public void addCandidateAC(String att, Concept introducer) {
+		
+		if (!isCooccurrentAC(att)) {
+			neighbours.add(new Concept(introducer.getIntent(), introducer.getExtent()));
+		}
+	}
+	
 	/**
 	 * Adds a candidate object-concept to the neighbours.
 	 * If the object is present in one of the current neighbours,
@@ -121,18 +143,7 @@ public class ConceptualCover {
 	 */
 	public void addCandidateOC(String obj) {
 		
-		// Checks if the object is not already corresponding to an object-concept
-		
-		boolean isCooccurent = false;
-		
-		for(Concept c : neighbours) {
-		
-			if (c.getExtent().contains(obj)) {
-				isCooccurent = true;
-			}
-		}
-		
-		if (!isCooccurent) {
+		if (!isCooccurrentOC(obj)) {
 			
 			ArrayList<String> objClosure = new ArrayList<String>();
 			objClosure.addAll(formalContext.objClosure(obj));
@@ -141,6 +152,48 @@ public class ConceptualCover {
 		}
 	}
 	
+	/**
+	 * Adds a candidate object-concept to the neighbours, whose concept has already been computed.
+	 * As in addCandidateOC(obj), it is not added if the object is present in one of the current neighbours.
+	 * 
+	 * @param obj the object introduced in the candidate object-concept
+	 * @param introducer the object-concept introducing obj, which is copied
+	 */
+	public void addCandidateOC(String obj, Concept introducer) {
+		
+		if (!isCooccurrentOC(obj)) {
+			neighbours.add(new Concept(introducer.getIntent(), introducer.getExtent()));
+		}
+	}
+	
+	/**
+	 * Returns true if the attribute att is in the intent of one of the neighbours,
+	 * i.e., if its attribute-concept is already in the neighbours.
+	 */
+	private boolean isCooccurrentAC(String att) {
+		
+		for (Concept c : neighbours) {
+			if (c.getIntent().contains(att)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns true if the object obj is in the extent of one of the neighbours,
+	 * i.e., if its object-concept is already in the neighbours.
+	 */
+	private boolean isCooccurrentOC(String obj) {
+		
+		for (Concept c : neighbours) {
+			if (c.getExtent().contains(obj)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	/**
 	 * Returns the concept in the list of neighbours having its intent corresponding to the attribute set i
 	 * 
@@ -0,0 +1,349 @@
+package localGen;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * This class generates synthetic formal contexts, to study how the computation of conceptual neighbourhoods scales
+ * with the number of objects, the number of attributes and the density of the context.
+ *
+ * The generation is deterministic: two generators with the same parameters and the same seed produce the same objects.
+ * The attributes are named a0001, a0002, ... with a fixed width, so that no attribute is a suffix of another one.
+ *
+ * The frequency of the attributes follows either a uniform or a Zipf distribution:
+ * with Zipf, the i-th attribute is drawn with a probability proportional to 1/i^s.
+ *
+ */
+public class ContextGenerator {
+
+	/**
+	 * Distributions of the attribute frequencies
+	 */
+	public enum Distribution { UNIFORM, ZIPF }
+
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Number of objects and attributes of the generated context
+	 */
+	private int numberOfObjects;
+	private int numberOfAttributes;
+
+	/**
+	 * Average proportion of the attributes owned by an object
+	 */
+	private double density;
+
+	/**
+	 * Distribution of the attribute frequencies, and exponent of the Zipf distribution
+	 */
+	private Distribution distribution = Distribution.UNIFORM;
+	private double exponent = 1.0;
+
+	/**
+	 * Seed of the random generator
+	 */
+	private long seed;
+
+	/**
+	 * Names of the attributes
+	 */
+	private String[] names;
+
+	/**
+	 * Cumulative probabilities of drawing each attribute
+	 */
+	private double[] cumulative;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates a generator of formal contexts with uniformly distributed attributes.
+	 *
+	 * @param numberOfObjects the number of objects to generate
+	 * @param numberOfAttributes the number of available attributes
+	 * @param density the average proportion of the attributes owned by an object, in ]0, 1]
+	 * @param seed the seed of the random generator
+	 */
+	public ContextGenerator(int numberOfObjects, int numberOfAttributes, double density, long seed) {
+
+		this.numberOfObjects = numberOfObjects;
+		this.numberOfAttributes = Math.max(1, numberOfAttributes);
+		this.density = Math.min(1.0, Math.max(0.0, density));
+		this.seed = seed;
+
+		// Fixed-width names
+
+		int width = Integer.toString(this.numberOfAttributes).length();
+		names = new String[this.numberOfAttributes];
+
+		for (int i = 0; i < this.numberOfAttributes; i++) {
+			names[i] = "a" + String.format("%0" + width + "d", i + 1);
+		}
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Sets the distribution of the attribute frequencies.
+	 *
+	 * @param distribution UNIFORM or ZIPF
+	 * @param exponent the exponent s of the Zipf distribution (ignored for UNIFORM)
+	 */
+	public void setDistribution(Distribution distribution, double exponent) {
+		this.distribution = distribution;
+		this.exponent = exponent;
+		this.cumulative = null;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Generates a formal context in memory.
+	 *
+	 * @return a formal context of at most numberOfObjects objects (duplicated attribute sets are only added once)
+	 */
+	public FormalContext generate() {
+
+		ArrayList<String> attributeSets = new ArrayList<String>();
+		Random random = new Random(seed);
+
+		for (int i = 0; i < numberOfObjects; i++) {
+			attributeSets.add(nextObject(random));
+		}
+
+		return new FormalContext(attributeSets);
+	}
+
+	/**
+	 * Writes the generated objects in a text file, in the format read by FormalContext: one {A;B;C}; per line.
+	 * The objects are streamed, so that the size of the file is not bounded by the memory.
+	 * The missing parent directories of the file are created.
+	 *
+	 * @param path the path of the file to be written
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(String path) throws IOException {
+
+		Path file = Paths.get(path);
+
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+			write(writer);
+		}
+	}
+
+	/**
+	 * Writes the generated objects, one {A;B;C}; per line.
+	 *
+	 * @param writer the writer receiving the objects
+	 * @throws IOException if an object cannot be written
+	 */
+	public void write(Writer writer) throws IOException {
+
+		Random random = new Random(seed);
+
+		for (int i = 0; i < numberOfObjects; i++) {
+			writer.write("{" + nextObject(random) + "};\n");
+		}
+
+		writer.flush();
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Computes the cumulative probabilities of drawing each attribute.
+	 */
+	private void computeCumulative() {
+
+		cumulative = new double[numberOfAttributes];
+
+		double sum = 0;
+
+		for (int i = 0; i < numberOfAttributes; i++) {
+			sum += distribution == Distribution.ZIPF ? 1.0 / Math.pow(i + 1, exponent) : 1.0;
+			cumulative[i] = sum;
+		}
+
+		for (int i = 0; i < numberOfAttributes; i++) {
+			cumulative[i] /= sum;
+		}
+	}
+
+	/**
+	 * Computes the probabilities with which a dense object of size attributes owns each attribute:
+	 * proportional to the weights of the attributes, and at most 1. The excess of the attributes capped at 1
+	 * is spread over the others in proportion to their weights, so that the expected size of the object stays size.
+	 *
+	 * @param size the number of attributes of the object
+	 * @return the probability of owning each attribute
+	 */
+	private double[] inclusionProbabilities(int size) {
+
+		int m = numberOfAttributes;
+		double[] p = new double[m];
+		boolean[] capped = new boolean[m];
+		int numberCapped = 0;
+
+		boolean changed = true;
+
+		while (changed) {
+
+			changed = false;
+
+			// Weight of the attributes not capped yet
+
+			double rest = 0;
+
+			for (int i = 0; i < m; i++) {
+				if (!capped[i]) {
+					rest += weight(i);
+				}
+			}
+			if (rest == 0) {
+				break;
+			}
+
+			double scale = (size - numberCapped) / rest;
+
+			for (int i = 0; i < m; i++) {
+				if (!capped[i]) {
+					p[i] = scale * weight(i);
+					if (p[i] >= 1.0) {
+						p[i] = 1.0;
+						capped[i] = true;
+						numberCapped++;
+						changed = true;
+					}
+				}
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Returns the probability of drawing the attribute of index i.
+	 */
+	private double weight(int i) {
+		return i == 0 ? cumulative[0] : cumulative[i] - cumulative[i - 1];
+	}
+
+	/**
+	 * Generates the attribute set of an object.
+	 * Its size follows a binomial distribution B(m, density) (normal approximation), and is at least 1.
+	 *
+	 * Sparse objects draw their attributes with the cumulative distribution, redrawing duplicates;
+	 * dense objects (more than a quarter of the attributes) test each attribute with the probability given by inclusionProbabilities.
+	 *
+	 * @param random the random generator
+	 * @return an attribute set A;B;C, whose attributes are sorted
+	 */
+	private String nextObject(Random random) {
+
+		if (cumulative == null) {
+			computeCumulative();
+		}
+
+		int m = numberOfAttributes;
+		double mean = m * density;
+		double sd = Math.sqrt(m * density * (1 - density));
+
+		int size = (int) Math.round(mean + sd * random.nextGaussian());
+		size = Math.max(1, Math.min(m, size));
+
+		// Indexes of the owned attributes, kept sorted
+
+		TreeSet<Integer> owned = new TreeSet<Integer>();
+
+		if (size <= m / 4) {
+
+			while (owned.size() < size) {
+
+				int i = Arrays.binarySearch(cumulative, random.nextDouble());
+				owned.add(Math.min(m - 1, i < 0 ? -i - 1 : i));
+			}
+
+		} else {
+
+			double[] p = inclusionProbabilities(size);
+
+			for (int i = 0; i < m; i++) {
+				if (random.nextDouble() < p[i]) {
+					owned.add(i);
+				}
+			}
+		}
+
+		StringBuilder s = new StringBuilder();
+
+		for (int i : owned) {
+			if (s.length() > 0) {
+				s.append(';');
+			}
+			s.append(names[i]);
+		}
+
+		// Dense draws may own no attribute
+
+		if (s.length() == 0) {
+			s.append(names[random.nextInt(m)]);
+		}
+
+		return s.toString();
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Writes a generated formal context in a text file.
+	 *
+	 * @param args number of objects, number of attributes, density, output file, and optionally the Zipf exponent and the seed
+	 */
+	public static void main(String[] args) {
+
+		if (args.length < 4) {
+			System.err.println("Usage: ContextGenerator <objects> <attributes> <density> <output> [zipf exponent] [seed]");
+			return;
+		}
+
+		int objects = Integer.parseInt(args[0]);
+		int attributes = Integer.parseInt(args[1]);
+		double density = Double.parseDouble(args[2]);
+		long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+
+		ContextGenerator generator = new ContextGenerator(objects, attributes, density, seed);
+
+		if (args.length > 4) {
+			generator.setDistribution(Distribution.ZIPF, Double.parseDouble(args[4]));
+		}
+
+		try {
+			generator.write(args[3]);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
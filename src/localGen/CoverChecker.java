@@ -0,0 +1,292 @@
+package localGen;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * This class checks the covers computed by local generation against the covers computed by brute force,
+ * i.e., among the extents of all the attribute-concepts and object-concepts of the formal context.
+ *
+ * The brute force computes every introducer of the formal context, and compares each concept checked with all of them:
+ * it is only meant for checking, apart from the timed runs of TestLocalGen.
+ *
+ */
+public class CoverChecker {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Number of mismatches printed per formal context
+	 */
+	private static final int PRINTED = 5;
+
+	private FormalContext formalContext;
+
+	/**
+	 * The concepts of the AOC-poset, once per extent
+	 */
+	private LinkedHashMap<HashSet<String>, Concept> introducers = new LinkedHashMap<HashSet<String>, Concept>();
+
+	/**
+	 * Number of covers compared and number of mismatches
+	 */
+	private int checks;
+	private int mismatches;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates a checker of the covers of a formal context, and computes all its introducers.
+	 *
+	 * @param formalContext a formal context
+	 */
+	public CoverChecker(FormalContext formalContext) {
+
+		this.formalContext = formalContext;
+
+		for (int o = 1; o <= formalContext.getNumberOfObjects(); o++) {
+			Concept c = new Concept();
+			c.setObjIntroducer(Integer.toString(o), formalContext);
+			introducers.putIfAbsent(new HashSet<String>(c.getExtent()), c);
+		}
+		for (String a : formalContext.getAttributes()) {
+			Concept c = new Concept();
+			c.setAttIntroducer(a, formalContext);
+			introducers.putIfAbsent(new HashSet<String>(c.getExtent()), c);
+		}
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the number of covers compared.
+	 */
+	public int getChecks() {
+		return checks;
+	}
+
+	/**
+	 * Returns the number of covers differing from the brute force.
+	 */
+	public int getMismatches() {
+		return mismatches;
+	}
+
+	/**
+	 * Returns the concepts of the AOC-poset, i.e., the introducers of the objects and the attributes, once per extent.
+	 */
+	public ArrayList<Concept> getIntroducers() {
+		return new ArrayList<Concept>(introducers.values());
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Checks the covers of introducers of the formal context, drawn with a seeded random generator.
+	 *
+	 * @param samples the number of introducers drawn, or 0 to check all of them
+	 * @param minSupport the threshold of the iceberg covers checked besides the threshold 1
+	 * @param seed the seed of the random generator
+	 */
+	public void check(int samples, int minSupport, long seed) {
+
+		ArrayList<Concept> concepts = getIntroducers();
+		Random random = new Random(seed);
+
+		for (int i = 0; i < (samples == 0 ? concepts.size() : samples); i++) {
+			check(samples == 0 ? concepts.get(i) : concepts.get(random.nextInt(concepts.size())), minSupport);
+		}
+	}
+
+	/**
+	 * Checks the covers of a concept: the upper cover, the lower cover, both covers of its neighbourhood,
+	 * and the iceberg lower covers at the thresholds 1 and minSupport must be those computed by brute force.
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @param minSupport the threshold of the iceberg covers checked besides the threshold 1
+	 */
+	public void check(Concept c, int minSupport) {
+
+		HashSet<HashSet<String>> upper = upperCover(c);
+		HashSet<HashSet<String>> lower = lowerCover(c, 0);
+
+		Neighbourhood n = TestLocalGen.computeNeighbourhood(c, formalContext);
+
+		compare("upper cover", c, TestLocalGen.computeUpperCover(c, formalContext), upper);
+		compare("lower cover", c, TestLocalGen.computeLowerCover(c, formalContext), lower);
+		compare("neighbourhood upper cover", c, n.getUpperCover(), upper);
+		compare("neighbourhood lower cover", c, n.getLowerCover(), lower);
+		compare("lower cover at threshold 1", c, TestLocalGen.computeLowerCover(c, formalContext, 1), lowerCover(c, 1));
+		compare("lower cover at threshold " + minSupport, c, TestLocalGen.computeLowerCover(c, formalContext, minSupport), lowerCover(c, minSupport));
+	}
+
+	/**
+	 * Computes the upper cover of a concept by brute force: the smallest extents strictly including its extent,
+	 * among the extents of all the introducers.
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @return the extents of the concepts of the upper cover
+	 */
+	public HashSet<HashSet<String>> upperCover(Concept c) {
+
+		HashSet<String> extent = new HashSet<String>(c.getExtent());
+
+		ArrayList<HashSet<String>> above = new ArrayList<HashSet<String>>();
+
+		for (HashSet<String> e : introducers.keySet()) {
+			if (e.size() > extent.size() && e.containsAll(extent)) {
+				above.add(e);
+			}
+		}
+
+		HashSet<HashSet<String>> cover = new HashSet<HashSet<String>>();
+
+		for (HashSet<String> e : above) {
+			if (above.stream().noneMatch(f -> f.size() < e.size() && e.containsAll(f))) {
+				cover.add(e);
+			}
+		}
+		return cover;
+	}
+
+	/**
+	 * Computes the lower cover of a concept by brute force: the greatest extents strictly included in its extent,
+	 * among the extents of all the introducers having at least minSupport objects (all of them if minSupport is 0).
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @param minSupport the minimum number of objects of the concepts
+	 * @return the extents of the concepts of the lower cover
+	 */
+	public HashSet<HashSet<String>> lowerCover(Concept c, int minSupport) {
+
+		HashSet<String> extent = new HashSet<String>(c.getExtent());
+
+		if (extent.size() < minSupport) {
+			return new HashSet<HashSet<String>>();
+		}
+
+		ArrayList<HashSet<String>> below = new ArrayList<HashSet<String>>();
+
+		for (HashSet<String> e : introducers.keySet()) {
+			if (e.size() >= minSupport && e.size() < extent.size() && extent.containsAll(e)) {
+				below.add(e);
+			}
+		}
+
+		HashSet<HashSet<String>> cover = new HashSet<HashSet<String>>();
+
+		for (HashSet<String> e : below) {
+			if (below.stream().noneMatch(f -> f.size() > e.size() && f.containsAll(e))) {
+				cover.add(e);
+			}
+		}
+		return cover;
+	}
+
+	/**
+	 * Returns the extents of the concepts of a cover.
+	 */
+	public static HashSet<HashSet<String>> extents(ConceptualCover cover) {
+
+		HashSet<HashSet<String>> extents = new HashSet<HashSet<String>>();
+
+		for (Concept c : cover.getConcepts()) {
+			extents.add(new HashSet<String>(c.getExtent()));
+		}
+		return extents;
+	}
+
+	/**
+	 * Returns a summary of the comparison.
+	 */
+	public String toString() {
+		return String.format("%d concepts, %d covers checked, %d mismatches", introducers.size(), checks, mismatches);
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Compares a cover with the extents computed by brute force, and reports it if they differ.
+	 */
+	private void compare(String name, Concept c, ConceptualCover cover, Set<HashSet<String>> expected) {
+
+		HashSet<HashSet<String>> actual = extents(cover);
+
+		checks++;
+
+		if (!actual.equals(expected)) {
+
+			if (mismatches < PRINTED) {
+
+				HashSet<HashSet<String>> missing = new HashSet<HashSet<String>>(expected);
+				missing.removeAll(actual);
+
+				HashSet<HashSet<String>> extra = new HashSet<HashSet<String>>(actual);
+				extra.removeAll(expected);
+
+				System.err.println("Mismatch on the " + name + " of " + c + ": " + missing.size() + " concepts missing, " + extra.size() + " extra");
+			}
+			mismatches++;
+		}
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Checks the covers of introducers of every variant list of data/fork-insight.
+	 * Exits with the status 1 if a cover differs from the brute force on one of them.
+	 *
+	 * @param args the number of sampled introducers (0 for all), the threshold of the iceberg covers and the seed
+	 */
+	public static void main(String[] args) {
+
+		int samples = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int minSupport = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+		File[] directories = new File("data/fork-insight").listFiles(File::isDirectory);
+		Arrays.sort(directories);
+
+		int failed = 0;
+
+		for (File directory : directories) {
+
+			if (!new File(directory, "output.txt").exists()) {
+				continue;
+			}
+
+			String path = "fork-insight/" + directory.getName() + "/output.txt";
+
+			CoverChecker checker = new CoverChecker(new FormalContext(path));
+			checker.check(samples, minSupport, seed);
+
+			System.out.println(String.format("%-48s%s", path, checker));
+
+			if (checker.getMismatches() > 0) {
+				failed++;
+			}
+		}
+
+		System.out.println(failed == 0 ? "All the covers match the brute force." : failed + " variant lists with mismatches.");
+
+		if (failed > 0) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,355 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a closure engine computing each closure of a set on whichever side of the incidence relation costs less,
+ * then mapping the result back to object ids or attributes.
+ *
+ * The bitset engine computes the closure of a set of attributes by intersecting their closures,
+ * i.e., one bitset of objects per attribute, and the closure of a set of objects by intersecting one bitset of attributes per object.
+ * When the formal context has many more attributes than objects (or the reverse), and the set is large,
+ * this reads far more words than the other side does: the closure of a set of attributes is also the set of objects,
+ * among those having its rarest attribute, whose transposed row contains the set; the closure of a set of objects is also the set of attributes,
+ * among those of its smallest attribute set, whose transposed column contains the set.
+ *
+ * Before each closure, the engine estimates the number of words read on both sides, and runs the cheaper one.
+ * The transposed view (TransposedIncidence) is built on the first closure of a set, and extended by the engines of the next versions.
+ * Other operations are those of the bitset engine.
+ *
+ */
+public class DualClosureEngine implements ClosureEngine {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Name of the engine
+	 */
+	public static final String NAME = "dual";
+
+	/**
+	 * Formal context of the closures
+	 */
+	private FormalContext formalContext;
+
+	/**
+	 * Engine computing the closures on the side of FormalContext
+	 */
+	private BitsetClosureEngine direct;
+
+	/**
+	 * Transposed incidence relation, built on demand
+	 */
+	private volatile TransposedIncidence transposed;
+
+	/**
+	 * Number of closures of sets computed on each side
+	 */
+	private LongAdder directClosures = new LongAdder();
+	private LongAdder transposedClosures = new LongAdder();
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates the engine of a formal context.
+	 *
+	 * @param formalContext a formal context
+	 */
+	public DualClosureEngine(FormalContext formalContext) {
+		this.formalContext = formalContext;
+		this.direct = new BitsetClosureEngine(formalContext);
+	}
+
+	/**
+	 * Creates the engine of the next version of a formal context, whose transposed view extends the one of previous, if built.
+	 *
+	 * @param formalContext the next version of the formal context of previous
+	 * @param previous the engine of the previous version
+	 */
+	DualClosureEngine(FormalContext formalContext, DualClosureEngine previous) {
+
+		this(formalContext);
+
+		TransposedIncidence t = previous.transposed;
+
+		if (t != null) {
+			transposed = new TransposedIncidence(t, formalContext);
+		}
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the number of closures of sets computed by intersecting the bitsets of FormalContext.
+	 */
+	public long getDirectClosures() {
+		return directClosures.sum();
+	}
+
+	/**
+	 * Returns the number of closures of sets computed on the transposed incidence relation.
+	 */
+	public long getTransposedClosures() {
+		return transposedClosures.sum();
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public ArrayList<String> attClosure(String att) {
+		return direct.attClosure(att);
+	}
+
+	@Override
+	public ArrayList<String> objClosure(String obj) {
+		return direct.objClosure(obj);
+	}
+
+	@Override
+	public ArrayList<String> setAttClosure(ArrayList<String> att) {
+
+		// Attributes outside the formal context are matched by the bitset engine
+
+		int[] indexes = new int[att.size()];
+
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = formalContext.indexOfAttribute(att.get(i));
+			if (indexes[i] < 0) {
+				return direct(att, true);
+			}
+		}
+
+		if (indexes.length == 0) {
+			return direct(att, true);
+		}
+
+		TransposedIncidence t = transposed();
+
+		int rarest = indexes[0];
+
+		for (int a : indexes) {
+			if (t.getSupport(a) < t.getSupport(rarest)) {
+				rarest = a;
+			}
+		}
+
+		// Words read: one closure per attribute, or one transposed row per object having the rarest attribute
+
+		long objectWords = (formalContext.getNumberOfObjects() + 63) >>> 6;
+		long attributeWords = (formalContext.getAttributes().size() + 63) >>> 6;
+
+		if (indexes.length * objectWords <= (t.getSupport(rarest) + 1) * attributeWords) {
+			return direct(att, true);
+		}
+
+		transposedClosures.increment();
+
+		long[] set = formalContext.attributeSet(att);
+		long[] closure = ClosureKernels.create(formalContext.getNumberOfObjects(), false);
+
+		for (int o : ClosureKernels.toIndexes(formalContext.extentAt(rarest))) {
+			if (t.isInClosures(o, set)) {
+				ClosureKernels.set(closure, o);
+			}
+		}
+		return ClosureKernels.toIds(closure);
+	}
+
+	@Override
+	public ArrayList<String> setObjClosure(ArrayList<String> obj) {
+
+		// Ids outside the formal context are ignored, as in the bitset engine
+
+		ArrayList<Integer> indexes = new ArrayList<Integer>();
+
+		for (String o : obj) {
+			int i = formalContext.indexOfObject(o);
+			if (i >= 0) {
+				indexes.add(i);
+			}
+		}
+
+		if (indexes.isEmpty()) {
+			return direct(obj, false);
+		}
+
+		TransposedIncidence t = transposed();
+
+		int smallest = indexes.get(0);
+
+		for (int o : indexes) {
+			if (t.getSize(o) < t.getSize(smallest)) {
+				smallest = o;
+			}
+		}
+
+		// Words read: one attribute set per object, or one transposed column per attribute of the smallest attribute set
+
+		long objectWords = (formalContext.getNumberOfObjects() + 63) >>> 6;
+		long attributeWords = (formalContext.getAttributes().size() + 63) >>> 6;
+
+		if (indexes.size() * attributeWords <= (t.getSize(smallest) + 1) * objectWords) {
+			return direct(obj, false);
+		}
+
+		transposedClosures.increment();
+
+		long[] set = ClosureKernels.create(formalContext.getNumberOfObjects(), false);
+
+		for (int o : indexes) {
+			ClosureKernels.set(set, o);
+		}
+
+		long[] closure = ClosureKernels.create(formalContext.getAttributes().size(), false);
+
+		for (int a : ClosureKernels.toIndexes(formalContext.intentOf(smallest))) {
+			if (ClosureKernels.isSubset(set, t.objectsOf(a))) {
+				ClosureKernels.set(closure, a);
+			}
+		}
+		return formalContext.attributeList(closure);
+	}
+
+	/**
+	 * Computes the closures of several sets of attributes in one sweep of the bitset engine,
+	 * whose reads are shared by the sets instead of being chosen set by set.
+	 */
+	@Override
+	public ArrayList<ArrayList<String>> setAttClosures(List<ArrayList<String>> sets) {
+		return direct.setAttClosures(sets);
+	}
+
+	/**
+	 * Computes the closures of several sets of objects in one sweep of the bitset engine.
+	 */
+	@Override
+	public ArrayList<ArrayList<String>> setObjClosures(List<ArrayList<String>> sets) {
+		return direct.setObjClosures(sets);
+	}
+
+	@Override
+	public boolean isAttIntroducedIn(String att, Concept c) {
+		return direct.isAttIntroducedIn(att, c);
+	}
+
+	@Override
+	public boolean isObjIntroducedIn(String obj, Concept c) {
+		return direct.isObjIntroducedIn(obj, c);
+	}
+
+	/**
+	 * Returns the number of closures computed on each side.
+	 */
+	public String toString() {
+		return NAME + ": " + getDirectClosures() + " direct closures, " + getTransposedClosures() + " transposed closures";
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Computes the closure of a set of attributes (att true) or of objects (att false) with the bitset engine.
+	 */
+	private ArrayList<String> direct(ArrayList<String> set, boolean att) {
+
+		directClosures.increment();
+
+		return att ? direct.setAttClosure(set) : direct.setObjClosure(set);
+	}
+
+	/**
+	 * Returns the transposed incidence relation, after building it if needed.
+	 */
+	private TransposedIncidence transposed() {
+
+		TransposedIncidence t = transposed;
+
+		if (t == null) {
+			synchronized (this) {
+				if (transposed == null) {
+					transposed = new TransposedIncidence(formalContext);
+				}
+				t = transposed;
+			}
+		}
+		return t;
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Computes the neighbourhoods of random introducers of skewed synthetic formal contexts,
+	 * with the bitset engine and with the dual engine, and compares their times and results.
+	 *
+	 * @param args the number of objects and of attributes of the wide formal context (the tall one is its transpose in size),
+	 * the density, the number of neighbourhoods and the seed
+	 */
+	public static void main(String[] args) {
+
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int m = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+		double density = args.length > 2 ? Double.parseDouble(args[2]) : 0.01;
+		int queries = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+
+		for (int[] size : new int[][] { { n, m }, { m, n } }) {
+
+			FormalContext formalContext = new ContextGenerator(size[0], size[1], density, seed).generate();
+
+			System.out.println("Formal context:\t\t\t\t" + formalContext.getNumberOfObjects() + " objects, "
+					+ formalContext.getAttributes().size() + " attributes");
+
+			ArrayList<String> results = new ArrayList<String>();
+
+			for (String name : new String[] { BitsetClosureEngine.NAME, NAME }) {
+
+				formalContext.setEngine(name);
+
+				Random random = new Random(seed);
+				StringBuilder result = new StringBuilder();
+
+				long currentTime = System.currentTimeMillis();
+
+				for (int q = 0; q < queries; q++) {
+
+					Concept c = new Concept();
+
+					if (q % 2 == 0) {
+						c.setObjIntroducer(Integer.toString(1 + random.nextInt(formalContext.getNumberOfObjects())), formalContext);
+					} else {
+						c.setAttIntroducer(formalContext.getAttributes().get(random.nextInt(formalContext.getAttributes().size())), formalContext);
+					}
+
+					result.append(Neighbourhood.compute(c, formalContext)).append('\n');
+				}
+
+				long timeExec = System.currentTimeMillis() - currentTime;
+
+				results.add(result.toString());
+
+				System.out.println(String.format("%-40s%d ms", name + " engine:", timeExec)
+						+ (name.equals(NAME) ? " (" + formalContext.getEngine() + ")" : ""));
+			}
+
+			System.out.println("Same neighbourhoods:\t\t\t" + results.get(0).equals(results.get(1)));
+		}
+	}
+}
@@ -1,10 +1,17 @@
 package localGen;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 
 /**
  * This class represents a formal context.
@@ -25,14 +32,61 @@ public class FormalContext {
 	/**
 	 * List of objects.
 	 * Each object is represented by a String representing an attribute set, in which attributes are split by semicolons: A;B;C.
+	 * The list is shared with the next versions of the formal context, which append their objects to it.
 	 */
-	private ArrayList<String> objects;
+	private SharedList<String> objects;
 	
 	/**
 	 * List of attributes.
 	 */
 	private ArrayList<String> attributes;
 	
+	/**
+	 * Index of each attribute in the list attributes.
+	 */
+	private HashMap<String, Integer> attributeIndexes;
+	
+	/**
+	 * For each attribute, the bitset of the objects having it (its closure).
+	 * An attribute is owned by an object if it ends one of the attributes of its attribute set.
+	 */
+	private long[][] extents;
+	
+	/**
+	 * For each object, the bitset of the attributes of its attribute set, shared with the next versions as objects.
+	 */
+	private SharedList<long[]> intents;
+	
+	/**
+	 * Set-tries of the attribute sets of the objects and of the closures of the attributes, built on demand.
+	 * In objectIntents, attributes are coded by their rank in decreasing order of support.
+	 * objectIntents is written last, and is volatile: a thread reading it once built also reads the other two, without lock.
+	 */
+	private volatile SetTrie objectIntents;
+	private SetTrie attributeExtents;
+	private int[] attributeRanks;
+	
+	/**
+	 * For each object, the number of objects of the concept introducing it, computed on demand (0 if not computed yet).
+	 * Allocated on the first demand.
+	 */
+	private int[] introducerSupports;
+	
+	/**
+	 * Content fingerprint, computed on demand.
+	 */
+	private String fingerprint;
+	
+	/**
+	 * Version of the formal context: 0 when created, incremented by each VersionedFormalContext.addObjects().
+	 */
+	private long version;
+	
+	/**
+	 * Implementation of the closure operations (-DlocalGen.engine=regex|bitset|dual, bitset by default).
+	 */
+	private ClosureEngine engine;
+	
 	
 	/************************* CONSTRUCTORS *************************/
 	
@@ -50,7 +104,7 @@ public class FormalContext {
 		
 		attributes = new ArrayList<String>();
 		
-		objects = new ArrayList<String>();
+		objects = new SharedList<String>(true);
 
 		// The specified text file is retrieved from the repository "data/"
 		
@@ -82,25 +136,203 @@ public class FormalContext {
 		this.computeDomain();
 	}
 	
+	/**
+	 * Creates a new formal context from a list of attribute sets.
+	 * Each attribute set is of the form A;B;C and represents an object.
+	 * As when reading a file, duplicated attribute sets are only added once.
+	 * 
+	 * @param attributeSets a list of attribute sets
+	 */
+	public FormalContext(List<String> attributeSets) {
+		this(attributeSets, null);
+	}
+	
+	/**
+	 * Creates a new formal context from a list of attribute sets, whose domain also contains the attributes of domain,
+	 * even if no object has them. Used to build a slice of a larger formal context.
+	 * 
+	 * @param attributeSets a list of attribute sets
+	 * @param domain attributes to be added to the domain, or null
+	 */
+	protected FormalContext(List<String> attributeSets, Collection<String> domain) {
+		
+		attributes = new ArrayList<String>();
+		
+		objects = new SharedList<String>(true);
+		
+		attributeSets.stream()
+		.distinct()
+		.forEach(o -> addObject(o));
+		
+		if (domain != null) {
+			attributes.addAll(domain);
+		}
+		
+		this.computeDomain();
+	}
+	
+	
+	/**
+	 * Creates the next version of the formal context previous, containing its objects followed by the new attribute sets.
+	 * Objects and attributes keep their ids and indexes. The list of objects, their attribute sets and the closures not modified
+	 * by the new objects are shared with previous, so that building a version mostly costs the addition of its new objects.
+	 * As when reading a file, attribute sets already in the formal context are not added again.
+	 * Versions are created by VersionedFormalContext, which only holds formal contexts whose objects are local.
+	 * 
+	 * @param previous a formal context, which is not modified
+	 * @param attributeSets the attribute sets of the new objects, of the form A;B;C
+	 */
+	FormalContext(FormalContext previous, List<String> attributeSets) {
+		
+		// The new objects are appended after the previous ones, in the same list
+		
+		objects = previous.objects.next();
+		
+		attributeSets.stream()
+		.distinct()
+		.filter(o -> !objects.contains(o))
+		.forEach(o -> addObject(o));
+		
+		version = previous.version + 1;
+		
+		int n = previous.objects.size();
+		
+		// Appends the new attributes after the previous ones
+		
+		attributes = previous.attributes;
+		attributeIndexes = previous.attributeIndexes;
+		
+		for (int o = n; o < objects.size(); o++) {
+			for (String t : objects.get(o).split(";")) {
+				
+				if (!attributeIndexes.containsKey(t)) {
+					
+					if (attributes == previous.attributes) {
+						attributes = new ArrayList<String>(previous.attributes);
+						attributeIndexes = new HashMap<String, Integer>(previous.attributeIndexes);
+					}
+					attributeIndexes.put(t, attributes.size());
+					attributes.add(t);
+				}
+			}
+		}
+		
+		int m = previous.attributes.size();
+		int objectWords = (objects.size() + 63) >>> 6;
+		
+		// The attribute sets of the previous objects are shared: they only contain previous attributes,
+		// and their missing words are empty (see ClosureKernels)
+		
+		intents = previous.intents.next();
+		
+		// The extents are shared, and copied on their first modification
+		
+		extents = Arrays.copyOf(previous.extents, attributes.size());
+		boolean[] copied = new boolean[attributes.size()];
+		
+		for (int a = m; a < attributes.size(); a++) {
+			extents[a] = ClosureKernels.create(objects.size(), false);
+			copied[a] = true;
+		}
+		
+		// A new attribute may end an attribute of a previous object: it then owns the objects of the previous attributes it ends.
+		// These are found among the suffixes of the previous attributes, without reading the attribute sets of the previous objects
+		
+		if (m < attributes.size()) {
+			for (int b = 0; b < m; b++) {
+				String t = attributes.get(b);
+				for (int k = 1; k <= t.length(); k++) {
+					Integer a = attributeIndexes.get(t.substring(k));
+					if (a != null && a >= m) {
+						long[] owners = previous.extents[b];
+						for (int w = 0; w < owners.length; w++) {
+							extents[a][w] |= owners[w];
+						}
+					}
+				}
+			}
+		}
+		
+		// Adds the new objects, as computeIncidence() does
+		
+		for (int o = n; o < objects.size(); o++) {
+			
+			long[] intent = ClosureKernels.create(attributes.size(), false);
+			intents.add(intent);
+			
+			for (String t : objects.get(o).split(";")) {
+				
+				ClosureKernels.set(intent, attributeIndexes.get(t));
+				
+				for (int k = 0; k <= t.length(); k++) {
+					Integer a = attributeIndexes.get(t.substring(k));
+					if (a != null) {
+						if (!copied[a]) {
+							extents[a] = Arrays.copyOf(extents[a], objectWords);
+							copied[a] = true;
+						}
+						ClosureKernels.set(extents[a], o);
+					}
+				}
+			}
+		}
+		
+		if (attributeIndexes.containsKey("")) {
+			extents[attributeIndexes.get("")] = ClosureKernels.create(objects.size(), true);
+		}
+		
+		// The supports of the introducers, which may grow with the new objects, are computed again on demand
+		
+		engine = ClosureEngine.next(previous.engine, this);
+	}
+	
 	
 	/************************* GETTERS AND SETTERS *************************/
 
 	/**
 	 * Retrieves the distinct attributes of the formal context.
 	 * 
-	 * @return a list of the attributes of the formal context.
+	 * @return a read-only list of the attributes of the formal context.
 	 */
-	public ArrayList<String> getAttributes(){
-		return attributes;
+	public List<String> getAttributes(){
+		return Collections.unmodifiableList(attributes);
 	}
 	
 	/**
 	 * Returns the attribute sets representing the objects.
 	 * 
-	 * @return a list of attribute sets.
+	 * @return a read-only list of attribute sets.
 	 */
-	public ArrayList<String> getObjects(){
-		return objects;
+	public List<String> getObjects(){
+		return Collections.unmodifiableList(objects);
+	}
+	
+	/**
+	 * Returns the engine computing the closures.
+	 * 
+	 * @return a closure engine
+	 */
+	public ClosureEngine getEngine() {
+		return engine;
+	}
+	
+	/**
+	 * Switches the engine computing the closures.
+	 * 
+	 * @param name regex or bitset
+	 * @throws IllegalArgumentException if there is no engine of this name
+	 */
+	public void setEngine(String name) {
+		engine = ClosureEngine.create(name, this);
+	}
+	
+	/**
+	 * Returns the version of the formal context, i.e., the number of VersionedFormalContext.addObjects() calls from which it results.
+	 * 
+	 * @return a version number
+	 */
+	public long getVersion() {
+		return version;
 	}
 	
 	
@@ -118,7 +350,7 @@ public class FormalContext {
 		
 		// Verifies if the object o is in the good format
 		
-		if (o.matches("([a-zA-Z0-9 ]|;)*")) {
+		if (isAttributeSet(o)) {
 			
 			this.objects.add(o);
 			
@@ -130,13 +362,25 @@ public class FormalContext {
 		}
 	}
 	
+	/**
+	 * Returns true if the String o is in the format of an attribute set, i.e., attributes split by semi-colons.
+	 * 
+	 * @param o a String
+	 * @return true if o represents an attribute set
+	 */
+	static boolean isAttributeSet(String o) {
+		return o.matches("[a-zA-Z0-9 ;]*");
+	}
+	
 	/**
 	 * Computes the distinct set of attributes of the formal context, based on the attribute sets representing the objects.
 	 * O(m*n)
 	 */
 	private void computeDomain() {
 		
-		HashSet<String> dom = new HashSet<String>();
+		HashSet<String> dom = new HashSet<String>(attributes);
+		
+		attributes.clear();
 		
 		for(String s : objects){
 			dom.addAll(Arrays.asList(s.split(";")));
@@ -145,6 +389,250 @@ public class FormalContext {
 		//System.out.println("Domain: " + dom);
 		
 		attributes.addAll(dom);
+		
+		this.computeIncidence();
+	}
+	
+	/**
+	 * Packs the incidence relation into bitsets: one bitset of objects per attribute, one bitset of attributes per object.
+	 * The suffixes of each attribute of an object are looked up, so that an attribute is owned by all the objects
+	 * containing an attribute it ends, as when matching attribute sets with ([a-zA-Z0-9 ]|;)*att(;|$)+([a-zA-Z0-9 ]|;)*.
+	 */
+	private void computeIncidence() {
+		
+		attributeIndexes = new HashMap<String, Integer>();
+		
+		for (int a = 0; a < attributes.size(); a++) {
+			attributeIndexes.put(attributes.get(a), a);
+		}
+		
+		extents = new long[attributes.size()][];
+		
+		for (int a = 0; a < attributes.size(); a++) {
+			extents[a] = ClosureKernels.create(objects.size(), false);
+		}
+		
+		intents = new SharedList<long[]>(false);
+		
+		for (int o = 0; o < objects.size(); o++) {
+			
+			long[] intent = ClosureKernels.create(attributes.size(), false);
+			intents.add(intent);
+			
+			for (String t : objects.get(o).split(";")) {
+				
+				ClosureKernels.set(intent, attributeIndexes.get(t));
+				
+				for (int k = 0; k <= t.length(); k++) {
+					Integer a = attributeIndexes.get(t.substring(k));
+					if (a != null) {
+						ClosureKernels.set(extents[a], o);
+					}
+				}
+			}
+		}
+		
+		// The empty attribute ends every attribute set, even those without attribute
+		
+		if (attributeIndexes.containsKey("")) {
+			extents[attributeIndexes.get("")] = ClosureKernels.create(objects.size(), true);
+		}
+		
+		engine = ClosureEngine.create(System.getProperty("localGen.engine", BitsetClosureEngine.NAME), this);
+	}
+	
+	/**
+	 * Builds the set-tries of the attribute sets and of the closures of the attributes, if they are not built yet.
+	 * Only their first build takes the lock of the formal context: the queries made afterwards only read objectIntents.
+	 */
+	private void buildIndexes() {
+		
+		if (objectIntents != null) {
+			return;
+		}
+		
+		synchronized (this) {
+			
+			if (objectIntents == null) {
+				buildIndexesLocked();
+			}
+		}
+	}
+	
+	/**
+	 * Builds the set-tries, under the lock of the formal context.
+	 */
+	private void buildIndexesLocked() {
+		
+		// Ranks the attributes by decreasing support, so that the most frequent ones are shared near the root
+		
+		Integer[] bySupport = new Integer[attributes.size()];
+		
+		for (int a = 0; a < bySupport.length; a++) {
+			bySupport[a] = a;
+		}
+		Arrays.sort(bySupport, (a, b) -> ClosureKernels.cardinality(extents[b]) - ClosureKernels.cardinality(extents[a]));
+		
+		int[] ranks = new int[attributes.size()];
+		
+		for (int r = 0; r < bySupport.length; r++) {
+			ranks[bySupport[r]] = r;
+		}
+		
+		attributeRanks = ranks;
+		
+		SetTrie intentTrie = new SetTrie();
+		
+		for (int o = 0; o < objects.size(); o++) {
+			intentTrie.add(intentCodes(o), o);
+		}
+		
+		SetTrie extentTrie = new SetTrie();
+		
+		for (int a = 0; a < attributes.size(); a++) {
+			extentTrie.add(extentCodes(a), a);
+		}
+		
+		// Published last, once the other indexes are written
+		
+		attributeExtents = extentTrie;
+		objectIntents = intentTrie;
+	}
+	
+	/**
+	 * Returns the ranks of the attributes of the object of index o, in increasing order.
+	 */
+	private int[] intentCodes(int o) {
+		
+		int[] set = new int[ClosureKernels.cardinality(intents.get(o))];
+		int k = 0;
+		
+		for (int a = 0; a < attributes.size(); a++) {
+			if (ClosureKernels.get(intents.get(o), a)) {
+				set[k++] = attributeRanks[a];
+			}
+		}
+		Arrays.sort(set);
+		return set;
+	}
+	
+	/**
+	 * Returns the indexes of the objects having the attribute of index a, in increasing order.
+	 */
+	private int[] extentCodes(int a) {
+		return ClosureKernels.toIndexes(extents[a]);
+	}
+	
+	/**
+	 * Converts object indexes into sorted object ids.
+	 */
+	private static ArrayList<String> toObjectIds(ArrayList<Integer> indexes) {
+		
+		Collections.sort(indexes);
+		
+		ArrayList<String> ids = new ArrayList<String>();
+		
+		for (int i : indexes) {
+			ids.add(Integer.toString(i + 1));
+		}
+		return ids;
+	}
+	
+	/**
+	 * Converts attribute indexes into attributes, in the order of the list of attributes.
+	 */
+	private ArrayList<String> toAttributes(ArrayList<Integer> indexes) {
+		
+		Collections.sort(indexes);
+		
+		ArrayList<String> att = new ArrayList<String>();
+		
+		for (int i : indexes) {
+			att.add(attributes.get(i));
+		}
+		return att;
+	}
+	
+	/**
+	 * Returns the bitset of the objects having the attribute att.
+	 * Attributes not in the formal context are matched against each attribute set.
+	 * 
+	 * @param att an attribute
+	 * @return a bitset of objects
+	 */
+	long[] extentOf(String att) {
+		
+		Integer a = attributeIndexes.get(att);
+		
+		if (a != null) {
+			return extents[a];
+		}
+		
+		long[] bits = ClosureKernels.create(objects.size(), false);
+		
+		for (int o = 0; o < objects.size(); o++) {
+			if (objects.get(o).matches("([a-zA-Z0-9 ]|;)*" + att + "(;|$)+([a-zA-Z0-9 ]|;)*")) {
+				ClosureKernels.set(bits, o);
+			}
+		}
+		return bits;
+	}
+	
+	/**
+	 * Returns the bitset of the objects having the attribute of index a.
+	 * 
+	 * @param a the index of an attribute
+	 * @return a bitset of objects
+	 */
+	long[] extentAt(int a) {
+		return extents[a];
+	}
+	
+	/**
+	 * Returns the index of the attribute att in the list attributes, or -1 if att is not in the formal context.
+	 * 
+	 * @param att an attribute
+	 * @return an index, or -1
+	 */
+	int indexOfAttribute(String att) {
+		return attributeIndexes.getOrDefault(att, -1);
+	}
+	
+	/**
+	 * Returns the index of the object of id obj in the list objects, or -1 if there is no such object.
+	 * 
+	 * @param obj an object id
+	 * @return an index, or -1
+	 */
+	int indexOfObject(String obj) {
+		
+		try {
+			int i = Integer.parseInt(obj) - 1;
+			return i >= 0 && i < getNumberOfObjects() ? i : -1;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	
+	/**
+	 * Returns the bitset of the attributes of the object of index o.
+	 * 
+	 * @param o the index of an object
+	 * @return a bitset of attributes
+	 */
+	long[] intentOf(int o) {
+		return intents.get(o);
+	}
+	
+	/**
+	 * Returns true if att is an attribute of the formal context.
+	 * 
+	 * @param att an attribute
+	 * @return true if att is in the list of attributes
+	 */
+	boolean hasAttribute(String att) {
+		return attributeIndexes.containsKey(att);
 	}
 	
 	
@@ -175,6 +663,40 @@ public class FormalContext {
 		}
 	}
 	
+	/**
+	 * Returns a fingerprint of the content of the formal context: the SHA-256 of its attribute sets, in order.
+	 * Two formal contexts having the same fingerprint give the same ids to the same objects, and thus the same concepts.
+	 * 
+	 * @return a hexadecimal String
+	 */
+	public String getFingerprint() {
+		
+		if (fingerprint == null) {
+			
+			try {
+				
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				
+				for (int i = 0; i < getNumberOfObjects(); i++) {
+					digest.update(getObjectAtIndex(i).getBytes(StandardCharsets.UTF_8));
+					digest.update((byte) '\n');
+				}
+				
+				StringBuilder hex = new StringBuilder();
+				
+				for (byte b : digest.digest()) {
+					hex.append(String.format("%02x", b));
+				}
+				
+				fingerprint = hex.toString();
+				
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return fingerprint;
+	}
+	
 	/**
 	 * Returns a String representing the objects.
 	 */
@@ -196,7 +718,7 @@ public class FormalContext {
 	 * @return true if the concept c introduces the attribute att, else false
 	 */
 	public boolean isAttIntroducedIn(String att, Concept c) {
-		return c.getExtent().containsAll(attClosure(att)) && attClosure(att).containsAll(c.getExtent());
+		return engine.isAttIntroducedIn(att, c);
 	}
 	
 	/**
@@ -208,7 +730,7 @@ public class FormalContext {
 	 * @return true if the concept c introduces the object o, else false
 	 */
 	public boolean isObjIntroducedIn(String obj, Concept c){
-		return c.getIntent().containsAll(objClosure(obj)) && objClosure(obj).containsAll(c.getIntent());
+		return engine.isObjIntroducedIn(obj, c);
 	}
 	
 	/**
@@ -219,17 +741,7 @@ public class FormalContext {
 	 * @return a list objects' indexes corresponding to the closure of the attribute.
 	 */
 	public ArrayList<String> attClosure(String att) {
-		
-		// TODO Faire une simple boucle avec indices pour éviter le indexof ?
-		
-		ArrayList<String> closure = new ArrayList<String>();
-				
-		this.objects.stream()
-		.filter(s -> s.matches("([a-zA-Z0-9 ]|;)*" + att + "(;|$)+([a-zA-Z0-9 ]|;)*"))
-		.map(x -> Integer.toString(objects.indexOf(x) + 1))
-		.forEach(closure::add);				 
-		
-		return closure;
+		return engine.attClosure(att);
 	}
 
 	/**
@@ -240,14 +752,7 @@ public class FormalContext {
 	 * @return the attribute set describing the object
 	 */
 	public ArrayList<String> objClosure(String obj) {
-
-		ArrayList<String> closure = new ArrayList<String>();
-		
-		Arrays	
-		.stream(this.getObjectAtIndex(Integer.parseInt(obj) - 1).split(";"))
-		.forEach(closure::add);
-		
-		return closure;
+		return engine.objClosure(obj);
 	}
 
 	/** 
@@ -258,66 +763,420 @@ public class FormalContext {
 	 * @return
 	 */
 	public ArrayList<String> setAttClosure(ArrayList<String> att){
+		return engine.setAttClosure(att);
+	}
+
+	/**
+	 * Computes the closure of a subset of objects.
+	 * It corresponds to the attributes shared by all the objects of the subset.
+	 * 
+	 * @param obj a set of indexes corresponding to objects of the formal context.
+	 * @return the attribute set included in all objects specified in parameter.
+	 */
+	public ArrayList<String> setObjClosure(ArrayList<String> obj){
+		return engine.setObjClosure(obj);
+	}
+	
+	/**
+	 * Computes the closures of several subsets of attributes at once.
+	 * They are answered in one pass over the closures of the attributes, each being read once for all the subsets.
+	 * 
+	 * @param sets subsets of attributes
+	 * @return the closure of each subset, in the order of sets
+	 */
+	public ArrayList<ArrayList<String>> setAttClosures(List<ArrayList<String>> sets){
+		return engine.setAttClosures(sets);
+	}
+	
+	/**
+	 * Computes the closures of several subsets of objects at once.
+	 * They are answered in one pass over the attribute sets of the objects, each being read once for all the subsets.
+	 * 
+	 * @param sets subsets of object ids
+	 * @return the closure of each subset, in the order of sets
+	 */
+	public ArrayList<ArrayList<String>> setObjClosures(List<ArrayList<String>> sets){
+		return engine.setObjClosures(sets);
+	}
+	
+	/**
+	 * Returns true if the closure of the object obj (its attribute set) is included in the attribute set intent.
+	 * 
+	 * @param obj an object of the formal context
+	 * @param intent an attribute set
+	 * @return true if each attribute of obj is in intent
+	 */
+	public boolean isObjClosureIncludedIn(String obj, ArrayList<String> intent) {
+		return isObjClosureIncludedIn(obj, attributeSet(intent));
+	}
+	
+	/**
+	 * Returns true if the closure of the object obj is included in the attribute set intent, packed by attributeSet.
+	 * 
+	 * @param obj an object of the formal context
+	 * @param intent a bitset of attributes
+	 * @return true if each attribute of obj is in intent
+	 */
+	public boolean isObjClosureIncludedIn(String obj, long[] intent) {
+		return ClosureKernels.isSubset(intents.get(indexOfObject(obj)), intent);
+	}
+	
+	/**
+	 * Returns true if the closure of the attribute att (the objects having it) is included in the object set extent.
+	 * 
+	 * @param att an attribute of the formal context
+	 * @param extent an object set
+	 * @return true if each object having att is in extent
+	 */
+	public boolean isAttClosureIncludedIn(String att, ArrayList<String> extent) {
+		return isAttClosureIncludedIn(att, objectSet(extent));
+	}
+	
+	/**
+	 * Returns true if the closure of the attribute att is included in the object set extent, packed by objectSet.
+	 * 
+	 * @param att an attribute of the formal context
+	 * @param extent a bitset of objects
+	 * @return true if each object having att is in extent
+	 */
+	public boolean isAttClosureIncludedIn(String att, long[] extent) {
+		return ClosureKernels.isSubset(extentOf(att), extent);
+	}
+	
+	/**
+	 * Packs a list of attributes into a bitset. Attributes not in the formal context are ignored.
+	 * 
+	 * @param att a list of attributes
+	 * @return a bitset of attributes
+	 */
+	public long[] attributeSet(ArrayList<String> att) {
 		
-		// Will contain the list of objects' indexes in the closure of att
+		long[] bits = ClosureKernels.create(attributes.size(), false);
 		
-		ArrayList<String> closure = new ArrayList<String>();
+		for (String a : att) {
+			Integer i = attributeIndexes.get(a);
+			if (i != null) {
+				ClosureKernels.set(bits, i);
+			}
+		}
+		return bits;
+	}
+	
+	/**
+	 * Returns the objects whose attribute set is included in the attribute set intent.
+	 * 
+	 * @param intent an attribute set
+	 * @return the ids of the objects having no attribute outside intent, in increasing order
+	 */
+	public ArrayList<String> objectsWithIntentIncludedIn(ArrayList<String> intent) {
+		
+		buildIndexes();
+		
+		long[] ranks = ClosureKernels.create(attributes.size(), false);
+		
+		for (String a : intent) {
+			Integer i = attributeIndexes.get(a);
+			if (i != null) {
+				ClosureKernels.set(ranks, attributeRanks[i]);
+			}
+		}
+		return toObjectIds(objectIntents.subsets(ranks));
+	}
+	
+	/**
+	 * Returns the objects whose attribute set includes the attribute set intent.
+	 * 
+	 * @param intent an attribute set
+	 * @return the ids of the objects having all the attributes of intent, in increasing order
+	 */
+	public ArrayList<String> objectsWithIntentIncluding(ArrayList<String> intent) {
 		
-		// Tests each object
-		// ownsAll stays at true if the attribute set corresponding to the object includes all the attributes of the subset att
+		buildIndexes();
 		
-		for (int i = 0; i < getNumberOfObjects(); i++) {
+		HashSet<Integer> ranks = new HashSet<Integer>();
 		
-			boolean ownsAll = true;
+		for (String a : intent) {
+			Integer i = attributeIndexes.get(a);
+			if (i == null) {
+				return new ArrayList<String>();
+			}
+			ranks.add(attributeRanks[i]);
+		}
+		return toObjectIds(objectIntents.supersets(ranks.stream().mapToInt(Integer::intValue).sorted().toArray()));
+	}
+	
+	/**
+	 * Returns the attributes whose closure is included in the object set extent.
+	 * 
+	 * @param extent a set of object ids
+	 * @return the attributes owned by no object outside extent, in the order of the list of attributes
+	 */
+	public ArrayList<String> attributesWithExtentIncludedIn(ArrayList<String> extent) {
+		
+		buildIndexes();
+		
+		return toAttributes(attributeExtents.subsets(objectSet(extent)));
+	}
+	
+	/**
+	 * Returns the attributes whose closure is included in the object set extent and contains at least minSupport objects.
+	 * The branches of the set-trie of the closures which only lead to rarer attributes are not explored.
+	 * 
+	 * @param extent a set of object ids
+	 * @param minSupport the minimum number of objects of the closures
+	 * @return the attributes owned by no object outside extent and by at least minSupport objects, in the order of the list of attributes
+	 */
+	public ArrayList<String> attributesWithExtentIncludedIn(ArrayList<String> extent, int minSupport) {
+		
+		buildIndexes();
+		
+		return toAttributes(attributeExtents.subsets(objectSet(extent), minSupport));
+	}
+	
+	/**
+	 * Returns the support of the attribute att, i.e., the number of objects of its closure.
+	 * 
+	 * @param att an attribute
+	 * @return the number of objects having att
+	 */
+	public int getSupport(String att) {
+		return ClosureKernels.cardinality(extentOf(att));
+	}
+	
+	/**
+	 * Returns the support of the concept introducing the object obj, i.e., the number of objects having all its attributes.
+	 * The supports are computed once per object, without computing the closures of the objects.
+	 * 
+	 * @param obj an object of the formal context
+	 * @return the number of objects of the extent of its introducer
+	 */
+	public int getIntroducerSupport(String obj) {
+		
+		int o = indexOfObject(obj);
+		int[] supports = introducerSupports;
+		
+		if (supports == null) {
+			supports = new int[getNumberOfObjects()];
+			introducerSupports = supports;
+		}
+		
+		int support = supports[o];
+		
+		if (support == 0) {
 			
-			for (String a : att) {
-				if (!getObjectAtIndex(i).matches("([a-zA-Z0-9 ]|;)*" + a + "(;|$)+([a-zA-Z0-9 ]|;)*")) {
-					ownsAll = false;
-				}
+			long[] closure = ClosureKernels.create(getNumberOfObjects(), true);
+			
+			for (int a : ClosureKernels.toIndexes(intents.get(o))) {
+				ClosureKernels.and(closure, extents[a]);
 			}
 			
-			if (ownsAll) {
-				closure.add("" + ( i+1));
+			support = ClosureKernels.cardinality(closure);
+			supports[o] = support;
+		}
+		return support;
+	}
+	
+	/**
+	 * Returns the attributes whose closure includes the object set extent.
+	 * 
+	 * @param extent a set of object ids
+	 * @return the attributes owned by all the objects of extent, in the order of the list of attributes
+	 */
+	public ArrayList<String> attributesWithExtentIncluding(ArrayList<String> extent) {
+		
+		buildIndexes();
+		
+		HashSet<Integer> indexes = new HashSet<Integer>();
+		
+		for (String o : extent) {
+			int i = indexOfObject(o);
+			if (i < 0) {
+				return new ArrayList<String>();
 			}
+			indexes.add(i);
 		}
-				
-		return closure;
+		return toAttributes(attributeExtents.supersets(indexes.stream().mapToInt(Integer::intValue).sorted().toArray()));
 	}
-
+	
 	/**
-	 * Computes the closure of a subset of objects.
-	 * It corresponds to the attributes shared by all the objects of the subset.
+	 * Returns the objects of obj whose attribute set is not included in the attribute set of another object of obj.
+	 * The attribute sets of the objects are indexed in a set-trie, queried for the supersets of each of them.
 	 * 
-	 * @param obj a set of indexes corresponding to objects of the formal context.
-	 * @return the attribute set included in all objects specified in parameter.
+	 * @param obj a list of object ids
+	 * @return the objects of obj having a maximal attribute set, in the order of obj
 	 */
-	public ArrayList<String> setObjClosure(ArrayList<String> obj){
+	public ArrayList<String> objectsWithMaximalIntent(ArrayList<String> obj) {
+		
+		buildIndexes();
+		
+		int[][] sets = new int[obj.size()][];
+		
+		for (int k = 0; k < obj.size(); k++) {
+			sets[k] = intentCodes(indexOfObject(obj.get(k)));
+		}
+		
+		boolean[] maximal = maximalSets(sets);
+		
+		ArrayList<String> res = new ArrayList<String>();
+		
+		for (int k = 0; k < obj.size(); k++) {
+			if (maximal[k]) {
+				res.add(obj.get(k));
+			}
+		}
+		return res;
+	}
+	
+	/**
+	 * Returns the attributes of att whose closure is not included in the closure of another attribute of att.
+	 * The closures of the attributes are indexed in a set-trie, queried for the supersets of each of them.
+	 * 
+	 * @param att a list of attributes
+	 * @return the attributes of att having a maximal closure, in the order of att
+	 */
+	public ArrayList<String> attributesWithMaximalExtent(ArrayList<String> att) {
+		
+		buildIndexes();
+		
+		int[][] sets = new int[att.size()][];
+		
+		for (int k = 0; k < att.size(); k++) {
+			sets[k] = ClosureKernels.toIndexes(extentOf(att.get(k)));
+		}
 		
-		// Will contain the attribute sets representing the objects of the indexes obj
+		boolean[] maximal = maximalSets(sets);
 		
-		ArrayList<String> temp = new ArrayList<String>();
+		ArrayList<String> res = new ArrayList<String>();
 		
-		// Will contain the attributes of the closure
-		// Implementation : Previously a set
+		for (int k = 0; k < att.size(); k++) {
+			if (maximal[k]) {
+				res.add(att.get(k));
+			}
+		}
+		return res;
+	}
+	
+	/**
+	 * Returns the attributes of att whose closure does not include the closure of another attribute of att.
+	 * The closures of the attributes are indexed in a set-trie, queried for the subsets of each of them.
+	 * 
+	 * @param att a list of attributes
+	 * @return the attributes of att having a minimal closure, in the order of att
+	 */
+	public ArrayList<String> attributesWithMinimalExtent(ArrayList<String> att) {
 		
-		ArrayList<String> cl = new ArrayList<String>();
-		cl.addAll(this.attributes);
+		buildIndexes();
 		
-		// Retrieves the attribute set corresponding to the objects specified in parameter.
+		int[][] sets = new int[att.size()][];
 		
-		getObjects()
-		.stream()
-		.filter(s -> obj.contains("" + ( 1 + this.objects.indexOf(s))))
-		.forEach(temp::add);
+		for (int k = 0; k < att.size(); k++) {
+			sets[k] = ClosureKernels.toIndexes(extentOf(att.get(k)));
+		}
+		
+		boolean[] minimal = minimalSets(sets, getNumberOfObjects());
 		
-		// Keeps only the attributes present in each object
+		ArrayList<String> res = new ArrayList<String>();
+		
+		for (int k = 0; k < att.size(); k++) {
+			if (minimal[k]) {
+				res.add(att.get(k));
+			}
+		}
+		return res;
+	}
 	
-		for (String o : temp) {
-			cl.retainAll(Arrays.asList(o.split(";")));
+	/**
+	 * Tests which sets are not included in another set of the list, by indexing them in a set-trie.
+	 * Two equal sets are included in each other, and thus are both not maximal.
+	 * 
+	 * @param sets a list of sets, whose elements are in increasing order
+	 * @return for each set, true if no other set of the list includes it
+	 */
+	protected static boolean[] maximalSets(int[][] sets) {
+		
+		SetTrie trie = new SetTrie();
+		
+		for (int k = 0; k < sets.length; k++) {
+			trie.add(sets[k], k);
 		}
-
-		return cl;
 		
+		// Only the set itself is found among its supersets
+		
+		boolean[] maximal = new boolean[sets.length];
+		
+		for (int k = 0; k < sets.length; k++) {
+			maximal[k] = trie.supersets(sets[k]).size() == 1;
+		}
+		return maximal;
+	}
+	
+	/**
+	 * Tests which sets do not include another set of the list, by indexing them in a set-trie.
+	 * Two equal sets are included in each other, and thus are both not minimal.
+	 * 
+	 * @param sets a list of sets, whose elements are in increasing order
+	 * @param size the number of possible elements
+	 * @return for each set, true if it includes no other set of the list
+	 */
+	protected static boolean[] minimalSets(int[][] sets, int size) {
+		
+		SetTrie trie = new SetTrie();
+		
+		for (int k = 0; k < sets.length; k++) {
+			trie.add(sets[k], k);
+		}
+		
+		// Only the set itself is found among its subsets
+		
+		boolean[] minimal = new boolean[sets.length];
+		
+		for (int k = 0; k < sets.length; k++) {
+			
+			long[] bits = ClosureKernels.create(size, false);
+			
+			for (int e : sets[k]) {
+				ClosureKernels.set(bits, e);
+			}
+			minimal[k] = trie.subsets(bits).size() == 1;
+		}
+		return minimal;
+	}
+	
+	/**
+	 * Unpacks a bitset of attributes into a list, in the order of the list of attributes.
+	 * 
+	 * @param bits a bitset of attributes
+	 * @return a list of attributes
+	 */
+	public ArrayList<String> attributeList(long[] bits) {
+		
+		// Only the set bits are visited, so that sparse bitsets of many attributes are unpacked quickly
+		
+		ArrayList<String> att = new ArrayList<String>();
+		
+		for (int a : ClosureKernels.toIndexes(bits)) {
+			att.add(attributes.get(a));
+		}
+		return att;
+	}
+	
+	/**
+	 * Packs a list of object ids into a bitset. Ids not in the formal context are ignored.
+	 * 
+	 * @param obj a list of object ids
+	 * @return a bitset of objects
+	 */
+	public long[] objectSet(ArrayList<String> obj) {
+		
+		long[] bits = ClosureKernels.create(getNumberOfObjects(), false);
+		
+		for (String o : obj) {
+			int i = indexOfObject(o);
+			if (i >= 0) {
+				ClosureKernels.set(bits, i);
+			}
+		}
+		return bits;
 	}
 
 }
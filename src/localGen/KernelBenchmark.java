@@ -0,0 +1,165 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class compares the implementations of the closure kernels on the largest variant lists.
+ *
+ * For each object, it computes the closure of its attribute set (as when retrieving its introducer),
+ * and tests the inclusion of the attribute set of every object in it (as in the filters of the upper cover).
+ *
+ * The kernels alone are also measured on the same bitsets, without the conversions between ids and bitsets around them,
+ * which gives the speed-up of the Vector API kernels over the plain word-at-a-time loops.
+ *
+ * The Vector API kernels are only measured when they are available (see ClosureKernels):
+ * java --add-modules jdk.incubator.vector localGen.KernelBenchmark
+ *
+ */
+public class KernelBenchmark {
+
+	/**
+	 * Number of repetitions of each measure
+	 */
+	private static final int REPETITIONS = 5;
+
+	public static void main(String[] args) {
+
+		String[] files = args.length > 0 ? args : new String[] {
+				"fork-insight/2048/output.txt",
+				"fork-insight/revealjs/output.txt",
+				"fork-insight/bootstrap/output.txt" };
+
+		if (!ClosureKernels.isVectorAvailable()) {
+			System.err.println("Vector API kernels not available: run with --add-modules jdk.incubator.vector, VectorKernels being compiled.");
+			return;
+		}
+
+		for (String file : files) {
+
+			FormalContext formalContext = new FormalContext(file);
+
+			System.out.println("Name:\t\t\t\t\t" + file);
+			System.out.println("Number of objects:\t\t\t" + formalContext.getNumberOfObjects());
+			System.out.println("Number of attributes:\t\t\t" + formalContext.getAttributes().size());
+
+			long scalar = measure(formalContext, ClosureKernels.Mode.SCALAR);
+			long vector = measure(formalContext, ClosureKernels.Mode.VECTOR);
+
+			System.out.println("Scalar kernels:\t\t\t\t" + scalar / 1000 + " us");
+			System.out.println("Vector kernels:\t\t\t\t" + vector / 1000 + " us");
+			System.out.println(String.format("Speed-up:\t\t\t\t%.1f", (double) scalar / vector));
+
+			long scalarKernels = measureKernels(formalContext, ClosureKernels.Mode.SCALAR);
+			long vectorKernels = measureKernels(formalContext, ClosureKernels.Mode.VECTOR);
+
+			System.out.println("Scalar kernels alone:\t\t\t" + scalarKernels / 1000 + " us");
+			System.out.println("Vector kernels alone:\t\t\t" + vectorKernels / 1000 + " us");
+			System.out.println(String.format("Speed-up of the kernels alone:\t\t%.1f", (double) scalarKernels / vectorKernels));
+		}
+
+		ClosureKernels.setMode(ClosureKernels.Mode.VECTOR);
+	}
+
+	/**
+	 * Returns the best time, in nanoseconds, of the closures and inclusion tests of all objects with the kernels m.
+	 */
+	private static long measure(FormalContext formalContext, ClosureKernels.Mode m) {
+
+		ClosureKernels.setMode(m);
+
+		long best = Long.MAX_VALUE;
+		int checksum = 0;
+
+		// The first repetition warms up the JIT
+
+		for (int r = 0; r <= REPETITIONS; r++) {
+
+			long currentTime = System.nanoTime();
+
+			for (int i = 1; i <= formalContext.getNumberOfObjects(); i++) {
+
+				ArrayList<String> intent = formalContext.objClosure(Integer.toString(i));
+				checksum += formalContext.setAttClosure(intent).size();
+
+				long[] intentSet = formalContext.attributeSet(intent);
+
+				for (int j = 1; j <= formalContext.getNumberOfObjects(); j++) {
+					if (formalContext.isObjClosureIncludedIn(Integer.toString(j), intentSet)) {
+						checksum++;
+					}
+				}
+			}
+
+			if (r > 0) {
+				best = Math.min(best, System.nanoTime() - currentTime);
+			}
+		}
+
+		if (checksum == 0) {
+			System.err.println("Empty formal context.");
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the best time, in nanoseconds, of the kernels alone with the implementation m: for each pair of objects,
+	 * the inclusion test and the intersection of their attribute sets, then for each pair of attributes, the intersection of their object sets.
+	 */
+	private static long measureKernels(FormalContext formalContext, ClosureKernels.Mode m) {
+
+		ClosureKernels.setMode(m);
+
+		int n = formalContext.getNumberOfObjects();
+		List<String> attributes = formalContext.getAttributes();
+
+		long[][] intents = new long[n][];
+		long[][] extents = new long[attributes.size()][];
+
+		for (int o = 0; o < n; o++) {
+			intents[o] = formalContext.intentOf(o);
+		}
+		for (int a = 0; a < extents.length; a++) {
+			extents[a] = formalContext.extentOf(attributes.get(a));
+		}
+
+		long[] intentAcc = ClosureKernels.create(attributes.size(), false);
+		long[] extentAcc = ClosureKernels.create(n, false);
+
+		long best = Long.MAX_VALUE;
+		long checksum = 0;
+
+		for (int r = 0; r <= REPETITIONS; r++) {
+
+			long currentTime = System.nanoTime();
+
+			for (long[] a : intents) {
+				for (long[] b : intents) {
+					if (ClosureKernels.isSubset(a, b)) {
+						checksum++;
+					}
+					System.arraycopy(a, 0, intentAcc, 0, a.length);
+					ClosureKernels.and(intentAcc, b);
+					checksum += intentAcc[0];
+				}
+			}
+
+			for (long[] a : extents) {
+				for (long[] b : extents) {
+					System.arraycopy(a, 0, extentAcc, 0, a.length);
+					ClosureKernels.and(extentAcc, b);
+					checksum += extentAcc[0];
+				}
+			}
+
+			if (r > 0) {
+				best = Math.min(best, System.nanoTime() - currentTime);
+			}
+		}
+
+		if (checksum == 0) {
+			System.err.println("Empty formal context.");
+		}
+		return best;
+	}
+}
@@ -0,0 +1,143 @@
+package localGen;
+
+/**
+ * This class represents the conceptual neighbourhood of a concept in the AOC-poset: its upper cover and its lower cover.
+ *
+ */
+public class Neighbourhood {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Concept of which this is the neighbourhood
+	 */
+	private Concept concept;
+
+	/**
+	 * Direct super-concepts
+	 */
+	private ConceptualCover upperCover;
+
+	/**
+	 * Direct sub-concepts
+	 */
+	private ConceptualCover lowerCover;
+
+	/**
+	 * True if the computation stopped before the end of its budget
+	 */
+	private boolean partial;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates the neighbourhood of the concept c.
+	 *
+	 * @param c a concept
+	 * @param upperCover its upper cover
+	 * @param lowerCover its lower cover
+	 */
+	public Neighbourhood(Concept c, ConceptualCover upperCover, ConceptualCover lowerCover) {
+		this(c, upperCover, lowerCover, false);
+	}
+
+	/**
+	 * Creates the neighbourhood of the concept c, possibly partial.
+	 *
+	 * @param c a concept
+	 * @param upperCover its upper cover, or the super-concepts found so far
+	 * @param lowerCover its lower cover, or the sub-concepts found so far
+	 * @param partial true if the computation was stopped before its end
+	 */
+	public Neighbourhood(Concept c, ConceptualCover upperCover, ConceptualCover lowerCover, boolean partial) {
+		this.concept = new Concept(c.getIntent(), c.getExtent());
+		this.upperCover = upperCover;
+		this.lowerCover = lowerCover;
+		this.partial = partial;
+	}
+
+	/**
+	 * Computes the neighbourhood of the concept c in one pass, with the same covers as upperCover and lowerCover.
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @param formalContext the formal context
+	 * @return the neighbourhood of c
+	 */
+	public static Neighbourhood compute(Concept c, FormalContext formalContext) {
+		return TestLocalGen.computeNeighbourhood(c, formalContext);
+	}
+
+	/**
+	 * Computes the neighbourhood of the concept c within a time budget.
+	 * If the budget is exhausted, the neighbourhood is partial: see isPartial().
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @param formalContext the formal context
+	 * @param budget the time budget of the computation
+	 * @return the neighbourhood of c, possibly partial
+	 */
+	public static Neighbourhood compute(Concept c, FormalContext formalContext, QueryBudget budget) {
+		return TestLocalGen.computeNeighbourhood(c, formalContext, budget);
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the concept of which this is the neighbourhood
+	 * 
+	 * @return a concept
+	 */
+	public Concept getConcept() {
+		return concept;
+	}
+
+	/**
+	 * Returns the direct super-concepts
+	 * 
+	 * @return the upper cover
+	 */
+	public ConceptualCover getUpperCover() {
+		return upperCover;
+	}
+
+	/**
+	 * Returns the direct sub-concepts
+	 * 
+	 * @return the lower cover
+	 */
+	public ConceptualCover getLowerCover() {
+		return lowerCover;
+	}
+
+	/**
+	 * Returns true if the computation was stopped before its end, because its budget was exhausted or its thread interrupted.
+	 * The covers of a partial neighbourhood only contain strict super-concepts and sub-concepts of the concept,
+	 * but some of them may not be direct neighbours, and some direct neighbours may be missing.
+	 *
+	 * @return true if the neighbourhood is partial
+	 */
+	public boolean isPartial() {
+		return partial;
+	}
+
+	/**
+	 * Returns the size of the neighbourhood
+	 *
+	 * @return the number of direct super-concepts and sub-concepts
+	 */
+	public int getNumberOfConcepts() {
+		return upperCover.getNumberOfConcepts() + lowerCover.getNumberOfConcepts();
+	}
+
+	/**
+	 * toString
+	 */
+	public String toString() {
+		return "Concept: " + concept + (partial ? " (partial)" : "") + "\nUpper cover:\n" + upperCover + "Lower cover:\n" + lowerCover;
+	}
+}
@@ -0,0 +1,304 @@
+package localGen;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class keeps the most recently used neighbourhoods of a formal context in memory.
+ *
+ * Concepts are interned in a ConceptRegistry: the cache maps the id of a concept to its neighbourhood.
+ * When the cache is full, the least recently used neighbourhood is evicted, and its concepts are released from the registry,
+ * which thus only holds the concepts of the neighbourhoods in the cache.
+ * Missing neighbourhoods are read from a NeighbourhoodStore, if any, else computed with upperCover and lowerCover.
+ *
+ */
+public class NeighbourhoodCache {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Formal context of the neighbourhoods
+	 */
+	private FormalContext formalContext;
+
+	/**
+	 * Concepts of the neighbourhoods in the cache
+	 */
+	private ConceptRegistry registry = new ConceptRegistry();
+
+	/**
+	 * Neighbourhoods by concept id, in access order (least recently used first)
+	 */
+	private LinkedHashMap<Integer, Neighbourhood> neighbourhoods;
+	private int maxEntries;
+
+	/**
+	 * Ids of the concepts of the covers of each neighbourhood in the cache, by concept id, released on eviction
+	 */
+	private HashMap<Integer, int[]> neighbours = new HashMap<Integer, int[]>();
+
+	/**
+	 * Store read on misses, or null
+	 */
+	private NeighbourhoodStore store;
+
+	/**
+	 * Recorder of the queries, or null
+	 */
+	private volatile QueryTrace.Recorder recorder;
+
+	/**
+	 * Statistics
+	 */
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long warmed;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates a cache of at most maxEntries neighbourhoods.
+	 *
+	 * @param formalContext the formal context of the neighbourhoods
+	 * @param maxEntries the maximum number of neighbourhoods kept
+	 */
+	public NeighbourhoodCache(FormalContext formalContext, int maxEntries) {
+		this(formalContext, maxEntries, null);
+	}
+
+	/**
+	 * Creates a cache of at most maxEntries neighbourhoods, reading the missing ones from a persistent store.
+	 *
+	 * @param formalContext the formal context of the neighbourhoods
+	 * @param maxEntries the maximum number of neighbourhoods kept
+	 * @param store a neighbourhood store, or null
+	 */
+	public NeighbourhoodCache(FormalContext formalContext, int maxEntries, NeighbourhoodStore store) {
+
+		this.formalContext = formalContext;
+		this.store = store;
+		this.maxEntries = maxEntries;
+
+		this.neighbourhoods = new LinkedHashMap<Integer, Neighbourhood>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Neighbourhood> eldest) {
+				if (size() > maxEntries) {
+					evictions++;
+					release(eldest.getKey());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the registry of the concepts of the neighbourhoods in the cache.
+	 */
+	public ConceptRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * Records the queries made to the cache, hits included, in a trace.
+	 *
+	 * @param recorder a recorder, or null to stop recording
+	 */
+	public void setRecorder(QueryTrace.Recorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Returns the number of neighbourhoods in the cache.
+	 */
+	public synchronized int size() {
+		return neighbourhoods.size();
+	}
+
+	/**
+	 * Returns the maximum number of neighbourhoods kept.
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Returns the number of neighbourhoods added by warm-up (see CacheWarmer).
+	 */
+	public synchronized long getWarmed() {
+		return warmed;
+	}
+
+	/**
+	 * Returns the number of neighbourhoods found in the cache.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of neighbourhoods not found in the cache.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of neighbourhoods evicted from the cache.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Returns the neighbourhood of the concept c, from the cache if it is there.
+	 * Two threads missing the same neighbourhood at the same time may both compute it.
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @return the neighbourhood of c
+	 */
+	public Neighbourhood neighbourhood(Concept c) {
+
+		QueryTrace.Recorder r = recorder;
+
+		if (r != null) {
+			r.neighbourhood(c);
+		}
+
+		synchronized (this) {
+
+			Neighbourhood n = neighbourhoods.get(registry.getId(c));
+
+			if (n != null) {
+				hits++;
+				return n;
+			}
+			misses++;
+		}
+
+		// Computed outside the lock, so that hits are not delayed by the computation
+
+		Neighbourhood n = store != null ? store.neighbourhood(c, formalContext) : Neighbourhood.compute(c, formalContext);
+
+		synchronized (this) {
+			add(c, n);
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the neighbourhood of the concept c if it is in the cache, without computing it.
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @return the neighbourhood of c, or null
+	 */
+	public synchronized Neighbourhood getIfPresent(Concept c) {
+
+		int id = registry.getId(c);
+
+		return id < 0 ? null : neighbourhoods.get(id);
+	}
+
+	/**
+	 * Adds the neighbourhood of the concept c to the cache ahead of the queries, if it is not there and the cache is not full.
+	 * Warm-up is not counted as hits or misses, not recorded in the trace, and never evicts a neighbourhood:
+	 * a neighbourhood which cannot be computed within the budget is dropped rather than cached partial.
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @param introducers the closures and introducers kept by the calling thread
+	 * @param budget the time budget of the computation
+	 * @return true if the neighbourhood was added
+	 */
+	boolean warm(Concept c, TestLocalGen.Introducers introducers, QueryBudget budget) {
+
+		synchronized (this) {
+			if (neighbourhoods.containsKey(registry.getId(c)) || neighbourhoods.size() >= maxEntries) {
+				return false;
+			}
+		}
+
+		// Read from the store if it is there, else computed here rather than by the store, within the budget
+
+		Neighbourhood n = store != null ? store.get(c, formalContext) : null;
+		boolean computed = n == null;
+
+		if (computed) {
+			n = TestLocalGen.computeNeighbourhood(c, formalContext, introducers, budget);
+		}
+		if (n.isPartial()) {
+			return false;
+		}
+		if (computed && store != null) {
+			store.putIfAbsent(n, formalContext);
+		}
+
+		synchronized (this) {
+
+			// A query may have added it meanwhile, or filled the cache
+
+			if (neighbourhoods.size() >= maxEntries || !add(c, n)) {
+				return false;
+			}
+			warmed++;
+		}
+		return true;
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Adds the neighbourhood n of the concept c, if it is not in the cache, and registers their concepts.
+	 * Called with the lock of the cache held.
+	 *
+	 * @return true if the neighbourhood was added
+	 */
+	private boolean add(Concept c, Neighbourhood n) {
+
+		if (neighbourhoods.containsKey(registry.getId(c))) {
+			return false;
+		}
+
+		int id = registry.intern(c);
+		int[] upper = registry.intern(n.getUpperCover());
+		int[] lower = registry.intern(n.getLowerCover());
+
+		int[] ids = Arrays.copyOf(upper, upper.length + lower.length);
+		System.arraycopy(lower, 0, ids, upper.length, lower.length);
+
+		neighbours.put(id, ids);
+		neighbourhoods.put(id, n);
+
+		return true;
+	}
+
+	/**
+	 * Releases from the registry the concept of id id and the concepts of its neighbourhood, evicted from the cache.
+	 * Called with the lock of the cache held.
+	 */
+	private void release(int id) {
+
+		for (int neighbour : neighbours.remove(id)) {
+			registry.release(neighbour);
+		}
+		registry.release(id);
+	}
+}
@@ -0,0 +1,349 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class computes conceptual neighbourhoods asynchronously, on a bounded pool of threads.
+ *
+ * Requests for a concept whose neighbourhood is already being computed are coalesced:
+ * they wait for the running computation instead of starting a new one.
+ * Each request receives its own future, so that cancelling a request does not cancel the others;
+ * the computation itself is cancelled when all the requests waiting for it are cancelled.
+ *
+ */
+public class NeighbourhoodService implements AutoCloseable {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * A computation in progress, and the number of requests waiting for it
+	 */
+	private static class Call {
+		private CompletableFuture<Neighbourhood> result = new CompletableFuture<Neighbourhood>();
+		private Future<?> task;
+		private int waiters;
+	}
+
+	/**
+	 * Formal context in which the neighbourhoods are computed
+	 */
+	private FormalContext formalContext;
+
+	/**
+	 * Threads computing the neighbourhoods
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * Computations in progress, by concept key. Also used as the lock of the calls.
+	 */
+	private HashMap<String, Call> inFlight = new HashMap<String, Call>();
+
+	/**
+	 * Recorder of the requests, or null
+	 */
+	private volatile QueryTrace.Recorder recorder;
+
+	/**
+	 * Time budget of each computation in milliseconds, or 0 for none
+	 */
+	private volatile long budget;
+
+	/**
+	 * Statistics
+	 */
+	private long requests;
+	private long computations;
+	private long coalesced;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates a service computing at most maxConcurrency neighbourhoods at a time.
+	 * At most maxQueued other computations wait for a thread; further requests fail with a RejectedExecutionException.
+	 *
+	 * @param formalContext a formal context
+	 * @param maxConcurrency the number of threads
+	 * @param maxQueued the number of computations waiting for a thread
+	 */
+	public NeighbourhoodService(FormalContext formalContext, int maxConcurrency, int maxQueued) {
+
+		this.formalContext = formalContext;
+
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, maxQueued)));
+
+		this.executor = pool;
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Records the requests, coalesced ones included, in a trace.
+	 *
+	 * @param recorder a recorder, or null to stop recording
+	 */
+	public void setRecorder(QueryTrace.Recorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Bounds the time of each computation: a computation still running after millis milliseconds
+	 * completes its requests with a partial neighbourhood (see Neighbourhood.isPartial()).
+	 *
+	 * @param millis the budget in milliseconds, or 0 for none
+	 */
+	public void setBudget(long millis) {
+		this.budget = millis;
+	}
+
+	/**
+	 * Returns the number of requests received.
+	 */
+	public long getRequests() {
+		synchronized (inFlight) {
+			return requests;
+		}
+	}
+
+	/**
+	 * Returns the number of neighbourhoods actually computed.
+	 */
+	public long getComputations() {
+		synchronized (inFlight) {
+			return computations;
+		}
+	}
+
+	/**
+	 * Returns the number of requests which waited for a computation already in progress.
+	 */
+	public long getCoalesced() {
+		synchronized (inFlight) {
+			return coalesced;
+		}
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Requests the neighbourhood of the concept c.
+	 * The concept is copied, so that it may be modified once the request is made.
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @return a future completed with the neighbourhood of c
+	 */
+	public CompletableFuture<Neighbourhood> neighbourhood(Concept c) {
+
+		Concept snapshot = new Concept(c.getIntent(), c.getExtent());
+		String key = snapshot.getKey();
+
+		QueryTrace.Recorder r = recorder;
+
+		if (r != null) {
+			r.neighbourhood(snapshot);
+		}
+
+		Call call;
+
+		synchronized (inFlight) {
+
+			requests++;
+			call = inFlight.get(key);
+
+			if (call != null) {
+				coalesced++;
+			} else {
+				call = start(key, snapshot);
+			}
+			call.waiters++;
+		}
+
+		// Each request has its own future, completed by the shared computation
+
+		CompletableFuture<Neighbourhood> request = new CompletableFuture<Neighbourhood>();
+
+		call.result.whenComplete((n, e) -> {
+			if (e != null) {
+				request.completeExceptionally(e);
+			} else {
+				request.complete(n);
+			}
+		});
+
+		Call c2 = call;
+
+		request.whenComplete((n, e) -> {
+			if (request.isCancelled()) {
+				leave(key, c2);
+			}
+		});
+
+		return request;
+	}
+
+	/**
+	 * Stops the threads, without waiting for the computations in progress.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Starts the computation of the neighbourhood of c. Must be called with the lock of inFlight.
+	 */
+	private Call start(String key, Concept c) {
+
+		Call call = new Call();
+		inFlight.put(key, call);
+		computations++;
+
+		try {
+
+			call.task = executor.submit(() -> {
+				try {
+
+					// Interrupting the thread (cancel or close) stops the computation at its next check
+
+					long millis = budget;
+					Neighbourhood n = Neighbourhood.compute(c, formalContext, millis > 0 ? QueryBudget.ofMillis(millis) : QueryBudget.untilInterrupted());
+
+					if (n.isPartial() && Thread.currentThread().isInterrupted()) {
+						call.result.cancel(false);
+					} else {
+						call.result.complete(n);
+					}
+				} catch (Throwable t) {
+					call.result.completeExceptionally(t);
+				} finally {
+					synchronized (inFlight) {
+						inFlight.remove(key, call);
+					}
+				}
+			});
+
+		} catch (RejectedExecutionException e) {
+			inFlight.remove(key);
+			call.result.completeExceptionally(e);
+		}
+		return call;
+	}
+
+	/**
+	 * Removes a cancelled request from its computation, and cancels the computation if no request waits for it anymore.
+	 */
+	private void leave(String key, Call call) {
+
+		synchronized (inFlight) {
+
+			call.waiters--;
+
+			if (call.waiters == 0 && !call.result.isDone()) {
+				inFlight.remove(key, call);
+				if (call.task != null) {
+					call.task.cancel(true);
+				}
+				call.result.cancel(false);
+			}
+		}
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Sends bursts of requests for a few popular concepts, with and without coalescing, and compares the latencies.
+	 *
+	 * @param args the path of a variant list (relative to "data/"), the number of threads and the number of popular concepts
+	 */
+	public static void main(String[] args) throws Exception {
+
+		String path = args.length > 0 ? args[0] : "fork-insight/2048/output.txt";
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		int popular = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+		FormalContext formalContext = new FormalContext(path);
+
+		ArrayList<Concept> concepts = new ArrayList<Concept>();
+
+		for (int i = 0; i < popular; i++) {
+			Concept c = new Concept();
+			c.setObjIntroducer(Integer.toString(1 + i * formalContext.getNumberOfObjects() / popular), formalContext);
+			concepts.add(c);
+		}
+
+		// Warm-up
+
+		for (Concept c : concepts) {
+			Neighbourhood.compute(c, formalContext);
+		}
+
+		System.out.println("Name:\t\t\t\t\t" + path);
+
+		for (boolean coalescing : new boolean[] { false, true }) {
+
+			int total = 20 * 10 * popular;
+			long[] latencies = new long[total];
+			ArrayList<CompletableFuture<Neighbourhood>> futures = new ArrayList<CompletableFuture<Neighbourhood>>();
+
+			ExecutorService naive = Executors.newFixedThreadPool(threads);
+			NeighbourhoodService service = new NeighbourhoodService(formalContext, threads, total);
+
+			long currentTime = System.nanoTime();
+
+			// 20 bursts: each popular concept is requested 10 times at once
+
+			for (int burst = 0; burst < 20; burst++) {
+				for (int r = 0; r < 10; r++) {
+					for (Concept c : concepts) {
+
+						int i = futures.size();
+						long start = System.nanoTime();
+
+						CompletableFuture<Neighbourhood> f = coalescing ? service.neighbourhood(c)
+								: CompletableFuture.supplyAsync(() -> Neighbourhood.compute(c, formalContext), naive);
+
+						futures.add(f.whenComplete((n, e) -> latencies[i] = System.nanoTime() - start));
+					}
+				}
+			}
+
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+
+			long timeExec = System.nanoTime() - currentTime;
+
+			service.close();
+			naive.shutdown();
+
+			Arrays.sort(latencies);
+
+			System.out.println(coalescing ? "With coalescing" : "Without coalescing");
+			System.out.println("Computations / requests:\t\t" + (coalescing ? service.getComputations() : total) + " / " + total);
+			System.out.println("Total time:\t\t\t\t" + timeExec / 1000000 + " ms");
+			System.out.println("Latency p50 / p99:\t\t\t" + latencies[total / 2] / 1000000 + " / " + latencies[total * 99 / 100] / 1000000 + " ms");
+		}
+	}
+}
@@ -0,0 +1,479 @@
+package localGen;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * This class stores computed neighbourhoods in an append-only file, so that they are not computed again after a restart.
+ *
+ * A neighbourhood is identified by the fingerprint of its formal context and the SHA-256 of the key of its concept,
+ * so that the key of a record has the same length whatever the size of the concept. Partial neighbourhoods are not stored.
+ * Each record of the file is: a magic number, the length of the payload, the payload, and the CRC32 of the payload.
+ * When the store is opened, records whose checksum does not match are rejected,
+ * and the file is truncated at the first record which cannot be read.
+ *
+ * When the file grows over its maximum size, it is compacted: the least recently used neighbourhoods are evicted
+ * until the file falls under three quarters of the maximum size.
+ * The order of use is not stored: compaction writes the records kept from the least to the most recently used,
+ * and when the store is opened, the records are taken as used in the order of the file,
+ * i.e., those kept by the last compaction in their order of use, then those added since in their order of addition.
+ *
+ */
+public class NeighbourhoodStore implements AutoCloseable {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Magic number starting each record ("LGN4": the records of "LGN1" to "LGN3" are keyed by the intents of the concepts,
+	 * and those of "LGN1" and "LGN2" hold covers computed before they were compared by extent)
+	 */
+	private static final int MAGIC = 0x4C474E34;
+
+	/**
+	 * Size of the header (magic number and length) and of the trailer (checksum) of a record
+	 */
+	private static final int HEADER = 8;
+	private static final int TRAILER = 8;
+
+	/**
+	 * Path of the file
+	 */
+	private File file;
+
+	/**
+	 * Open file
+	 */
+	private RandomAccessFile raf;
+
+	/**
+	 * Maximum size of the file, in bytes
+	 */
+	private long maxBytes;
+
+	/**
+	 * Offset and length of the record of each key, in access order (least recently used first)
+	 */
+	private LinkedHashMap<String, long[]> index = new LinkedHashMap<String, long[]>(16, 0.75f, true);
+
+	/**
+	 * Statistics
+	 */
+	private int hits;
+	private int misses;
+	private int rejected;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Opens (or creates) a store.
+	 *
+	 * @param path the path of the file
+	 * @param maxBytes the maximum size of the file, in bytes
+	 * @throws IOException if the file cannot be opened
+	 */
+	public NeighbourhoodStore(String path, long maxBytes) throws IOException {
+
+		this.file = new File(path);
+		this.maxBytes = maxBytes;
+		this.raf = new RandomAccessFile(file, "rw");
+
+		load();
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the number of stored neighbourhoods.
+	 */
+	public synchronized int size() {
+		return index.size();
+	}
+
+	/**
+	 * Returns the number of neighbourhoods found in the store.
+	 */
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of neighbourhoods not found in the store.
+	 */
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of corrupted records rejected when opening the store.
+	 */
+	public synchronized int getRejected() {
+		return rejected;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Returns the neighbourhood of the concept c, read from the store if it has already been computed,
+	 * else computed with upperCover and lowerCover and added to the store.
+	 * The neighbourhood is computed without holding the lock of the store, so that the other threads can read and add neighbourhoods meanwhile;
+	 * two threads missing the same neighbourhood at the same time may both compute it, but it is added once.
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @param formalContext the formal context
+	 * @return the neighbourhood of c
+	 */
+	public Neighbourhood neighbourhood(Concept c, FormalContext formalContext) {
+
+		Neighbourhood n = get(c, formalContext);
+
+		if (n == null) {
+
+			n = Neighbourhood.compute(c, formalContext);
+			putIfAbsent(n, formalContext);
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the stored neighbourhood of the concept c, or null if it is not in the store.
+	 *
+	 * @param c a concept
+	 * @param formalContext the formal context of c
+	 * @return the neighbourhood of c, or null
+	 */
+	public synchronized Neighbourhood get(Concept c, FormalContext formalContext) {
+
+		String key = key(c, formalContext);
+		long[] location = index.get(key);
+
+		if (location == null) {
+			misses++;
+			return null;
+		}
+
+		try {
+
+			byte[] payload = readPayload(location[0]);
+
+			if (payload == null) {
+				index.remove(key);
+				misses++;
+				return null;
+			}
+
+			hits++;
+			return decode(payload, c, formalContext);
+
+		} catch (IOException e) {
+			System.err.println("Cannot read the neighbourhood of " + c + ": " + e);
+			misses++;
+			return null;
+		}
+	}
+
+	/**
+	 * Appends a neighbourhood to the store.
+	 *
+	 * @param n a complete neighbourhood
+	 * @param formalContext the formal context of the neighbourhood
+	 * @throws IllegalArgumentException if the neighbourhood is partial
+	 */
+	public synchronized void put(Neighbourhood n, FormalContext formalContext) {
+
+		// A partial neighbourhood would be read as the neighbourhood of its concept after a restart
+
+		if (n.isPartial()) {
+			throw new IllegalArgumentException("Partial neighbourhood of " + n.getConcept() + " not stored");
+		}
+
+		String key = key(n.getConcept(), formalContext);
+
+		try {
+
+			long offset = raf.length();
+			byte[] record = record(encode(key, n));
+
+			raf.seek(offset);
+			raf.write(record);
+
+			index.put(key, new long[] { offset, record.length });
+
+			if (raf.length() > maxBytes) {
+				compact();
+			}
+
+		} catch (IOException e) {
+			System.err.println("Cannot store the neighbourhood of " + n.getConcept() + ": " + e);
+		}
+	}
+
+	/**
+	 * Appends a neighbourhood to the store, unless another thread has already added it.
+	 *
+	 * @param n a neighbourhood
+	 * @param formalContext the formal context of the neighbourhood
+	 */
+	synchronized void putIfAbsent(Neighbourhood n, FormalContext formalContext) {
+
+		if (!index.containsKey(key(n.getConcept(), formalContext))) {
+			put(n, formalContext);
+		}
+	}
+
+	/**
+	 * Closes the file.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		raf.close();
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Returns the key of the concept c in the formal context: the fingerprint of the formal context and the SHA-256 of the key of c.
+	 */
+	private static String key(Concept c, FormalContext formalContext) {
+
+		try {
+
+			StringBuilder hex = new StringBuilder(formalContext.getFingerprint()).append('/');
+
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(c.getKey().getBytes(StandardCharsets.UTF_8))) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Reads the records of the file to build the index.
+	 */
+	private void load() throws IOException {
+
+		long offset = 0;
+		long length = raf.length();
+
+		while (offset + HEADER + TRAILER <= length) {
+
+			raf.seek(offset);
+
+			int magic = raf.readInt();
+			int size = raf.readInt();
+
+			// The end of the file cannot be trusted anymore
+
+			if (magic != MAGIC || size < 0 || offset + HEADER + size + TRAILER > length) {
+				break;
+			}
+
+			byte[] payload = readPayload(offset);
+
+			if (payload != null) {
+				String key = new DataInputStream(new ByteArrayInputStream(payload)).readUTF();
+				index.put(key, new long[] { offset, HEADER + size + TRAILER });
+			} else {
+				rejected++;
+			}
+
+			offset += HEADER + size + TRAILER;
+		}
+
+		if (offset < length) {
+			System.err.println("Neighbourhood store " + file + " truncated at " + offset + " bytes.");
+			rejected++;
+			raf.setLength(offset);
+		}
+	}
+
+	/**
+	 * Reads the payload of the record at the specified offset, or returns null if its checksum does not match.
+	 */
+	private byte[] readPayload(long offset) throws IOException {
+
+		raf.seek(offset + 4);
+		int size = raf.readInt();
+
+		byte[] payload = new byte[size];
+		raf.readFully(payload);
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		return crc.getValue() == raf.readLong() ? payload : null;
+	}
+
+	/**
+	 * Wraps a payload into a record.
+	 */
+	private static byte[] record(byte[] payload) throws IOException {
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER + payload.length + TRAILER);
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.writeInt(MAGIC);
+		out.writeInt(payload.length);
+		out.write(payload);
+		out.writeLong(crc.getValue());
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Encodes a neighbourhood: its key, then its upper and lower covers.
+	 */
+	private static byte[] encode(String key, Neighbourhood n) throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.writeUTF(key);
+		encode(out, n.getUpperCover());
+		encode(out, n.getLowerCover());
+
+		return bytes.toByteArray();
+	}
+
+	private static void encode(DataOutputStream out, ConceptualCover cover) throws IOException {
+
+		out.writeInt(cover.getNumberOfConcepts());
+
+		for (Concept c : cover.getConcepts()) {
+
+			out.writeInt(c.getIntent().size());
+			for (String a : c.getIntent()) {
+				out.writeUTF(a);
+			}
+
+			out.writeInt(c.getExtent().size());
+			for (String o : c.getExtent()) {
+				out.writeInt(Integer.parseInt(o));
+			}
+		}
+	}
+
+	/**
+	 * Decodes the neighbourhood of the concept c.
+	 */
+	private static Neighbourhood decode(byte[] payload, Concept c, FormalContext formalContext) throws IOException {
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+
+		in.readUTF();
+
+		ConceptualCover upper = decode(in, formalContext);
+		ConceptualCover lower = decode(in, formalContext);
+
+		return new Neighbourhood(c, upper, lower);
+	}
+
+	private static ConceptualCover decode(DataInputStream in, FormalContext formalContext) throws IOException {
+
+		ConceptualCover cover = new ConceptualCover(formalContext);
+
+		int size = in.readInt();
+
+		for (int i = 0; i < size; i++) {
+
+			ArrayList<String> intent = new ArrayList<String>();
+			int n = in.readInt();
+			for (int k = 0; k < n; k++) {
+				intent.add(in.readUTF());
+			}
+
+			ArrayList<String> extent = new ArrayList<String>();
+			n = in.readInt();
+			for (int k = 0; k < n; k++) {
+				extent.add(Integer.toString(in.readInt()));
+			}
+
+			cover.addConcept(new Concept(intent, extent));
+		}
+		return cover;
+	}
+
+	/**
+	 * Rewrites the file with the most recently used records, until it reaches three quarters of the maximum size.
+	 */
+	private void compact() throws IOException {
+
+		// Keeps the most recently used records
+
+		ArrayList<Map.Entry<String, long[]>> entries = new ArrayList<Map.Entry<String, long[]>>(index.entrySet());
+
+		long budget = maxBytes * 3 / 4;
+		int first = entries.size();
+
+		while (first > 0 && budget - entries.get(first - 1).getValue()[1] >= 0) {
+			first--;
+			budget -= entries.get(first).getValue()[1];
+		}
+
+		File temp = new File(file.getPath() + ".tmp");
+		LinkedHashMap<String, long[]> compacted = new LinkedHashMap<String, long[]>(16, 0.75f, true);
+
+		try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+
+			out.setLength(0);
+
+			for (Iterator<Map.Entry<String, long[]>> it = entries.listIterator(first); it.hasNext();) {
+
+				Map.Entry<String, long[]> e = it.next();
+				byte[] record = new byte[(int) e.getValue()[1]];
+
+				raf.seek(e.getValue()[0]);
+				raf.readFully(record);
+
+				compacted.put(e.getKey(), new long[] { out.getFilePointer(), record.length });
+				out.write(record);
+			}
+		}
+
+		// The file is replaced before the old one is closed: if it cannot be replaced (or reopened),
+		// the store keeps reading and appending to the old file, whose records are still indexed
+
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.deleteIfExists(temp.toPath());
+			throw e;
+		}
+
+		RandomAccessFile previous = raf;
+
+		raf = new RandomAccessFile(file, "rw");
+		index = compacted;
+
+		previous.close();
+	}
+}
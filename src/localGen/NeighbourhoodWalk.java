@@ -0,0 +1,183 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * This class computes the neighbourhoods of the successive concepts of a walk in the AOC-poset,
+ * each concept being a neighbour of the previous one.
+ *
+ * Neighbouring concepts share most of their attributes and objects: the closures and introducers computed for a concept
+ * (the introducers of the attributes of its intent and of the objects of its extent, the closures of its candidates)
+ * are kept for the next steps, so that only those of the attributes and objects which differ are computed.
+ * Walks often come back to a concept they just left: the closures are kept in least recently used order, up to a maximum number of each kind,
+ * so that the memory does not grow with the length of the walk.
+ *
+ * The neighbourhoods are those of Neighbourhood.compute(). A walk is used by one thread at a time.
+ *
+ */
+public class NeighbourhoodWalk {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Formal context of the walk
+	 */
+	private FormalContext formalContext;
+
+	/**
+	 * Default maximum number of closures of each kind kept from the previous steps
+	 */
+	public static final int MAX_ENTRIES = 10000;
+
+	/**
+	 * Closures and introducers kept from the previous steps
+	 */
+	private TestLocalGen.Introducers introducers;
+
+	/**
+	 * Number of steps
+	 */
+	private int steps;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Starts a walk in the AOC-poset of a formal context, keeping at most MAX_ENTRIES closures of each kind.
+	 *
+	 * @param formalContext a formal context
+	 */
+	public NeighbourhoodWalk(FormalContext formalContext) {
+		this(formalContext, MAX_ENTRIES);
+	}
+
+	/**
+	 * Starts a walk in the AOC-poset of a formal context.
+	 *
+	 * @param formalContext a formal context
+	 * @param maxEntries the maximum number of closures of each kind kept from the previous steps
+	 */
+	public NeighbourhoodWalk(FormalContext formalContext, int maxEntries) {
+		this.formalContext = formalContext;
+		this.introducers = new TestLocalGen.Introducers(formalContext, maxEntries);
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the number of steps of the walk.
+	 */
+	public int getSteps() {
+		return steps;
+	}
+
+	/**
+	 * Returns the number of closures and introducers computed since the start of the walk.
+	 */
+	public long getComputed() {
+		return introducers.getComputed();
+	}
+
+	/**
+	 * Returns the number of closures and introducers found already computed, by the same step or by a previous one.
+	 */
+	public long getReused() {
+		return introducers.getReused();
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Computes the neighbourhood of the next concept of the walk.
+	 * The walk is faster when c is a neighbour of the previous concept, but any concept of the AOC-poset may be given.
+	 *
+	 * @param c a concept of the AOC-poset
+	 * @return the neighbourhood of c
+	 */
+	public Neighbourhood step(Concept c) {
+
+		steps++;
+
+		return TestLocalGen.computeNeighbourhood(c, formalContext, introducers);
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Walks randomly in the AOC-poset of a variant list, from neighbour to neighbour,
+	 * and compares the time of the steps with the time of Neighbourhood.compute() on the same concepts.
+	 *
+	 * @param args the path of a variant list (relative to "data/"), the number of steps and the seed of the random generator
+	 */
+	public static void main(String[] args) {
+
+		String path = args.length > 0 ? args[0] : "fork-insight/2048/output.txt";
+		int length = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		Random random = new Random(args.length > 2 ? Long.parseLong(args[2]) : 42);
+
+		FormalContext formalContext = new FormalContext(path);
+
+		// The walk goes from a random object-concept to a random neighbour, avoiding the top concept
+
+		ArrayList<Concept> walk = new ArrayList<Concept>();
+
+		Concept c = new Concept();
+		c.setObjIntroducer(Integer.toString(1 + random.nextInt(formalContext.getNumberOfObjects())), formalContext);
+
+		for (int i = 0; i < length; i++) {
+
+			walk.add(c);
+
+			Neighbourhood n = Neighbourhood.compute(c, formalContext);
+
+			ArrayList<Concept> next = new ArrayList<Concept>(n.getUpperCover().getConcepts());
+			next.addAll(n.getLowerCover().getConcepts());
+			next.removeIf(u -> u.getIntent().contains("") || u.getIntent().isEmpty());
+
+			if (next.isEmpty()) {
+				break;
+			}
+			c = next.get(random.nextInt(next.size()));
+		}
+
+		System.out.println("Name:\t\t\t\t\t" + path);
+		System.out.println("Steps:\t\t\t\t\t" + walk.size());
+
+		// Same concepts, without and with the state of the previous step
+
+		ArrayList<String> separate = new ArrayList<String>();
+		ArrayList<String> incremental = new ArrayList<String>();
+
+		long currentTime = System.nanoTime();
+
+		for (Concept w : walk) {
+			separate.add(Neighbourhood.compute(w, formalContext).toString());
+		}
+
+		long timeSeparate = System.nanoTime() - currentTime;
+
+		NeighbourhoodWalk walker = new NeighbourhoodWalk(formalContext);
+
+		currentTime = System.nanoTime();
+
+		for (Concept w : walk) {
+			incremental.add(walker.step(w).toString());
+		}
+
+		long timeIncremental = System.nanoTime() - currentTime;
+
+		System.out.println("Time / step, from scratch:\t\t" + String.format("%.2f", timeSeparate / 1e6 / walk.size()) + " ms");
+		System.out.println("Time / step, incremental:\t\t" + String.format("%.2f", timeIncremental / 1e6 / walk.size()) + " ms");
+		System.out.println("Closures reused / computed:\t\t" + walker.getReused() + " / " + walker.getComputed());
+		System.out.println("Same neighbourhoods:\t\t\t" + separate.equals(incremental));
+	}
+}
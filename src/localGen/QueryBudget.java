@@ -0,0 +1,193 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class represents the time budget of a neighbourhood computation, checked by the computation itself between its closures.
+ *
+ * A budget is exhausted when its deadline is passed, when it is cancelled, or, if it honours interruptions, when the thread checking it is interrupted.
+ * The interruption status of the thread is left unchanged, so that the caller also sees it.
+ * Once exhausted, a budget stays exhausted: a budget is used by one computation.
+ *
+ */
+public class QueryBudget {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Budget never exhausted, and ignoring interruptions, used by the computations without budget
+	 */
+	public static final QueryBudget UNLIMITED = new QueryBudget(0, false, false);
+
+	/**
+	 * Deadline, as given by System.nanoTime(), if bounded
+	 */
+	private long deadline;
+	private boolean bounded;
+
+	/**
+	 * True if the interruption of the thread exhausts the budget
+	 */
+	private boolean interruptible;
+
+	/**
+	 * True once cancelled by cancel(), and once exhausted
+	 */
+	private volatile boolean cancelled;
+	private boolean exhausted;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	private QueryBudget(long deadline, boolean bounded, boolean interruptible) {
+		this.deadline = deadline;
+		this.bounded = bounded;
+		this.interruptible = interruptible;
+	}
+
+	/**
+	 * Returns a budget of millis milliseconds from now, which also honours interruptions.
+	 *
+	 * @param millis the duration of the budget
+	 * @return a new budget
+	 */
+	public static QueryBudget ofMillis(long millis) {
+		return new QueryBudget(System.nanoTime() + millis * 1000000, true, true);
+	}
+
+	/**
+	 * Returns a budget without deadline, exhausted only when the thread is interrupted or the budget cancelled.
+	 *
+	 * @return a new budget
+	 */
+	public static QueryBudget untilInterrupted() {
+		return new QueryBudget(0, false, true);
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Returns true if the computation must stop.
+	 *
+	 * @return true if the deadline is passed, the budget cancelled or the thread interrupted (if the budget honours interruptions)
+	 */
+	public boolean isExhausted() {
+
+		if (!exhausted) {
+			exhausted = cancelled
+					|| (bounded && System.nanoTime() - deadline >= 0)
+					|| (interruptible && Thread.currentThread().isInterrupted());
+		}
+		return exhausted;
+	}
+
+	/**
+	 * Cancels the budget: the computation using it stops at its next check. May be called by another thread.
+	 *
+	 * @throws UnsupportedOperationException on UNLIMITED
+	 */
+	public void cancel() {
+
+		if (this == UNLIMITED) {
+			throw new UnsupportedOperationException("The unlimited budget cannot be cancelled");
+		}
+		cancelled = true;
+	}
+
+	/**
+	 * Returns the time left before the deadline, in milliseconds (Long.MAX_VALUE without deadline).
+	 */
+	public long getRemainingMillis() {
+		return bounded ? Math.max(0, (deadline - System.nanoTime()) / 1000000) : Long.MAX_VALUE;
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Computes the neighbourhoods of the object-concepts of a variant list without budget, then within a budget,
+	 * and compares the latencies; then interrupts the computation of the slowest neighbourhood and measures how fast it stops.
+	 *
+	 * @param args the path of a variant list (relative to "data/"), the budget in milliseconds and the number of concepts
+	 */
+	public static void main(String[] args) throws InterruptedException {
+
+		String path = args.length > 0 ? args[0] : "fork-insight/2048/output.txt";
+		long millis = args.length > 1 ? Long.parseLong(args[1]) : 5;
+		int size = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+
+		FormalContext formalContext = new FormalContext(path);
+
+		ArrayList<Concept> concepts = new ArrayList<Concept>();
+
+		for (int i = 0; i < Math.min(size, formalContext.getNumberOfObjects()); i++) {
+			Concept c = new Concept();
+			c.setObjIntroducer(Integer.toString(1 + i * formalContext.getNumberOfObjects() / size), formalContext);
+			concepts.add(c);
+		}
+
+		// Warm-up
+
+		for (Concept c : concepts) {
+			Neighbourhood.compute(c, formalContext);
+		}
+
+		System.out.println("Name:\t\t\t\t\t" + path);
+
+		Concept slowest = null;
+		long slowestTime = 0;
+
+		for (boolean budgeted : new boolean[] { false, true }) {
+
+			long[] latencies = new long[concepts.size()];
+			int partial = 0;
+
+			for (int i = 0; i < concepts.size(); i++) {
+
+				long start = System.nanoTime();
+
+				Neighbourhood n = budgeted ? Neighbourhood.compute(concepts.get(i), formalContext, QueryBudget.ofMillis(millis))
+						: Neighbourhood.compute(concepts.get(i), formalContext);
+
+				latencies[i] = System.nanoTime() - start;
+
+				if (n.isPartial()) {
+					partial++;
+				}
+				if (!budgeted && latencies[i] > slowestTime) {
+					slowest = concepts.get(i);
+					slowestTime = latencies[i];
+				}
+			}
+
+			Arrays.sort(latencies);
+
+			System.out.println(budgeted ? "With a budget of " + millis + " ms" : "Without budget");
+			System.out.println(String.format("Latency p50 / p99 / max:\t\t%.2f / %.2f / %.2f ms", latencies[latencies.length / 2] / 1e6,
+					latencies[latencies.length * 99 / 100] / 1e6, latencies[latencies.length - 1] / 1e6));
+			System.out.println("Partial neighbourhoods:\t\t\t" + partial + " / " + concepts.size());
+		}
+
+		// Interruption of the slowest computation after 1 ms
+
+		Concept c = slowest;
+		Neighbourhood[] result = new Neighbourhood[1];
+
+		Thread worker = new Thread(() -> result[0] = Neighbourhood.compute(c, formalContext, QueryBudget.untilInterrupted()));
+
+		worker.start();
+		Thread.sleep(1);
+
+		long start = System.nanoTime();
+		worker.interrupt();
+		worker.join();
+
+		System.out.println(String.format("Slowest concept interrupted, stopped in:\t%.2f ms (partial: %b)", (System.nanoTime() - start) / 1e6, result[0].isPartial()));
+	}
+}
@@ -0,0 +1,307 @@
+package localGen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class replays a QueryTrace against a formal context loaded locally, to measure how it copes with a real access pattern.
+ *
+ * The queries are sent in open loop: each one is submitted to a pool of threads at its scheduled time,
+ * whether the previous ones are answered or not. Three schedules are available:
+ * - original: the times of the trace;
+ * - scaled: the times of the trace divided by a factor (2 sends the queries twice as fast);
+ * - rate: a constant number of queries per second, in the order of the trace.
+ *
+ * For each query, the queueing delay is the time between its scheduled time and the start of its computation,
+ * and the latency the time between its scheduled time and the end of its computation,
+ * so that the time spent waiting for a thread is not hidden when the pool is overloaded.
+ *
+ */
+public class QueryReplay {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Schedules of the queries
+	 */
+	public enum Pacing { ORIGINAL, SCALED, RATE }
+
+	/**
+	 * Measures of a replay
+	 */
+	public static class Report {
+
+		private int queries;
+		private AtomicInteger failed = new AtomicInteger();
+		private long nanos;
+		private long[] queueing;
+		private long[] latency;
+		private long[] service;
+
+		/**
+		 * Returns the number of queries answered per second.
+		 */
+		public double getThroughput() {
+			return nanos == 0 ? 0 : (queries - failed.get()) * 1e9 / nanos;
+		}
+
+		/**
+		 * Returns the number of queries whose computation failed.
+		 */
+		public int getFailed() {
+			return failed.get();
+		}
+
+		/**
+		 * Returns the p-th percentile of the queueing delays, in milliseconds.
+		 */
+		public double getQueueing(double p) {
+			return percentile(queueing, p);
+		}
+
+		/**
+		 * Returns the p-th percentile of the latencies, in milliseconds.
+		 */
+		public double getLatency(double p) {
+			return percentile(latency, p);
+		}
+
+		/**
+		 * Returns the p-th percentile of the computation times, in milliseconds.
+		 */
+		public double getService(double p) {
+			return percentile(service, p);
+		}
+
+		public String toString() {
+			return String.format("Queries:\t\t\t\t%d (%d failed) in %.0f ms\n", queries, getFailed(), nanos / 1e6)
+					+ String.format("Throughput:\t\t\t\t%.1f queries/s\n", getThroughput())
+					+ String.format("Queueing delay p50 / p99 / max:\t%.2f / %.2f / %.2f ms\n", getQueueing(50), getQueueing(99), getQueueing(100))
+					+ String.format("Latency p50 / p90 / p99 / p99.9:\t%.2f / %.2f / %.2f / %.2f ms\n", getLatency(50), getLatency(90), getLatency(99), getLatency(99.9))
+					+ String.format("Computation p50 / p99:\t\t\t%.2f / %.2f ms", getService(50), getService(99));
+		}
+
+		/**
+		 * Returns the p-th percentile of sorted durations, in milliseconds.
+		 */
+		private static double percentile(long[] sorted, double p) {
+
+			if (sorted.length == 0) {
+				return 0;
+			}
+			int i = (int) Math.ceil(p / 100 * sorted.length) - 1;
+
+			return sorted[Math.max(0, Math.min(sorted.length - 1, i))] / 1e6;
+		}
+	}
+
+	/**
+	 * Formal context against which the queries are replayed
+	 */
+	private FormalContext formalContext;
+
+	/**
+	 * Number of threads answering the queries
+	 */
+	private int threads;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates a replay of traces against a formal context.
+	 *
+	 * @param formalContext a formal context
+	 * @param threads the number of threads answering the queries
+	 */
+	public QueryReplay(FormalContext formalContext, int threads) {
+		this.formalContext = formalContext;
+		this.threads = threads;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Replays the queries of a trace and measures their latencies.
+	 * The queries are decoded before the replay starts, so that decoding is not measured.
+	 *
+	 * @param trace a trace, recorded on the same formal context
+	 * @param pacing the schedule of the queries
+	 * @param value the factor dividing the times of the trace (SCALED), or the number of queries per second (RATE)
+	 * @return the measures
+	 * @throws IllegalArgumentException if the trace was recorded on another formal context, whose indexes do not match these attributes
+	 * @throws InterruptedException if the thread is interrupted while waiting for the queries
+	 */
+	public Report replay(QueryTrace trace, Pacing pacing, double value) throws InterruptedException {
+
+		if (!trace.getFingerprint().equals(formalContext.getFingerprint())) {
+			throw new IllegalArgumentException("The trace was recorded on another formal context: " + trace.getSource());
+		}
+
+		List<QueryTrace.Query> queries = trace.getQueries();
+		int n = queries.size();
+
+		Runnable[] tasks = new Runnable[n];
+		long[] schedule = new long[n];
+
+		long first = n == 0 ? 0 : queries.get(0).getTime();
+
+		for (int i = 0; i < n; i++) {
+
+			QueryTrace.Query q = queries.get(i);
+
+			tasks[i] = decode(q);
+
+			switch (pacing) {
+			case ORIGINAL:
+				schedule[i] = q.getTime() - first;
+				break;
+			case SCALED:
+				schedule[i] = (long) ((q.getTime() - first) / value);
+				break;
+			case RATE:
+				schedule[i] = (long) (i * 1e9 / value);
+				break;
+			}
+		}
+
+		Report report = new Report();
+		report.queries = n;
+		report.queueing = new long[n];
+		report.latency = new long[n];
+		report.service = new long[n];
+
+		ExecutorService pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+
+		long start = System.nanoTime();
+		long[] end = new long[1];
+
+		// Submits each query at its scheduled time
+
+		for (int i = 0; i < n; i++) {
+
+			long scheduled = start + schedule[i];
+			long wait;
+
+			while ((wait = scheduled - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+
+			int k = i;
+
+			pool.execute(() -> {
+
+				long begin = System.nanoTime();
+
+				try {
+					tasks[k].run();
+				} catch (RuntimeException e) {
+					report.failed.incrementAndGet();
+				}
+
+				long now = System.nanoTime();
+
+				report.queueing[k] = begin - scheduled;
+				report.latency[k] = now - scheduled;
+				report.service[k] = now - begin;
+
+				synchronized (end) {
+					end[0] = Math.max(end[0], now);
+				}
+			});
+		}
+
+		pool.shutdown();
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+		report.nanos = n == 0 ? 0 : end[0] - start;
+
+		Arrays.sort(report.queueing);
+		Arrays.sort(report.latency);
+		Arrays.sort(report.service);
+
+		return report;
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Returns the computation of a recorded query in the formal context.
+	 */
+	private Runnable decode(QueryTrace.Query q) {
+
+		ArrayList<String> extent = new ArrayList<String>();
+
+		for (int i : q.getElements()) {
+			extent.add(Integer.toString(i + 1));
+		}
+
+		// A concept is rebuilt from its extent
+
+		Concept c = new Concept(formalContext.setObjClosure(extent), extent);
+
+		return () -> Neighbourhood.compute(c, formalContext);
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Replays a trace against the variant list on which it was recorded, and prints the measures.
+	 *
+	 * @param args the path of the trace, the schedule (original, scale:factor or rate:queries per second), the number of threads
+	 * and the path of the variant list (relative to "data/", the one of the trace by default)
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+
+		if (args.length == 0) {
+			System.err.println("Usage: QueryReplay trace [original|scale:factor|rate:qps] [threads] [variant list]");
+			System.exit(1);
+		}
+
+		QueryTrace trace = new QueryTrace(args[0]);
+
+		String schedule = args.length > 1 ? args[1] : "original";
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		String path = args.length > 3 ? args[3] : trace.getSource();
+
+		Pacing pacing = Pacing.ORIGINAL;
+		double value = 1;
+
+		if (schedule.startsWith("scale:")) {
+			pacing = Pacing.SCALED;
+			value = Double.parseDouble(schedule.substring(6));
+		} else if (schedule.startsWith("rate:")) {
+			pacing = Pacing.RATE;
+			value = Double.parseDouble(schedule.substring(5));
+		}
+
+		FormalContext formalContext = new FormalContext(path);
+
+		System.out.println("Name:\t\t\t\t\t" + path);
+		System.out.println("Trace:\t\t\t\t\t" + trace.getQueries().size() + " queries over " + trace.getDuration() / 1000000 + " ms");
+		System.out.println("Schedule:\t\t\t\t" + schedule + ", " + threads + " threads");
+
+		try {
+			System.out.println(new QueryReplay(formalContext, threads).replay(trace, pacing, value));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
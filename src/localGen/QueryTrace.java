@@ -0,0 +1,347 @@
+package localGen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a trace of the neighbourhood queries made to a formal context,
+ * with the time at which each of them was made. Traces are written by a QueryTrace.Recorder and replayed by QueryReplay.
+ *
+ * The trace is a compact binary file: a header (magic number, path of the variant list and fingerprint of the formal context),
+ * then one record per query:
+ * - the kind of the query (one byte, NEIGHBOURHOOD for now);
+ * - the time elapsed since the previous query, in microseconds (variable-length integer);
+ * - the number of elements and the elements, sorted and coded by their difference with the previous one (variable-length integers).
+ * A concept is identified by the indexes of the objects of its extent, as by Concept.getKey().
+ * Queries on objects outside the formal context are not recorded.
+ *
+ */
+public class QueryTrace {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Magic number starting the file ("LGQ2": the traces of "LGQ1" identify concepts by their intents)
+	 */
+	private static final int MAGIC = 0x4C475132;
+
+	/**
+	 * Kind of the queries recorded
+	 */
+	public static final byte NEIGHBOURHOOD = 1;
+
+	/**
+	 * A recorded query
+	 */
+	public static class Query {
+
+		private byte kind;
+		private long time;
+		private int[] elements;
+
+		/**
+		 * Returns the kind of the query (NEIGHBOURHOOD).
+		 */
+		public byte getKind() {
+			return kind;
+		}
+
+		/**
+		 * Returns the time of the query since the start of the recording, in nanoseconds.
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * Returns the indexes of the objects of the extent of the concept.
+		 */
+		public int[] getElements() {
+			return elements;
+		}
+	}
+
+	/**
+	 * Records the queries made to a formal context in a trace file. Queries may be recorded by several threads.
+	 * The first error writing the file stops the recording, and is thrown by close().
+	 */
+	public static class Recorder implements AutoCloseable {
+
+		private FormalContext formalContext;
+		private DataOutputStream out;
+		private long start = System.nanoTime();
+		private long last;
+		private long recorded;
+		private long skipped;
+		private IOException failure;
+
+		/**
+		 * Creates a trace file for the queries made to a formal context.
+		 *
+		 * @param path the path of the trace file
+		 * @param source the path of the variant list of the formal context (relative to "data/")
+		 * @param formalContext the formal context
+		 * @throws IOException if the file cannot be created
+		 */
+		public Recorder(String path, String source, FormalContext formalContext) throws IOException {
+
+			this.formalContext = formalContext;
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+
+			out.writeInt(MAGIC);
+			out.writeUTF(source);
+			out.writeUTF(formalContext.getFingerprint());
+		}
+
+		/**
+		 * Returns the number of queries recorded.
+		 */
+		public synchronized long getRecorded() {
+			return recorded;
+		}
+
+		/**
+		 * Returns the number of queries not recorded, because they contained objects outside the formal context.
+		 */
+		public synchronized long getSkipped() {
+			return skipped;
+		}
+
+		/**
+		 * Records a query of the neighbourhood of c.
+		 */
+		public void neighbourhood(Concept c) {
+			record(NEIGHBOURHOOD, objectIndexes(c.getExtent()));
+		}
+
+		/**
+		 * Writes the queries still buffered and closes the file.
+		 *
+		 * @throws IOException if the file could not be written, during the recording or now
+		 */
+		@Override
+		public synchronized void close() throws IOException {
+
+			try {
+				out.close();
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+
+			if (failure != null) {
+				throw failure;
+			}
+		}
+
+		/**
+		 * Writes a record, or counts it as skipped if indexes is null.
+		 */
+		private synchronized void record(byte kind, int[] indexes) {
+
+			if (indexes == null) {
+				skipped++;
+				return;
+			}
+
+			// A record may have been cut by the failure: nothing is written after it
+
+			if (failure != null) {
+				return;
+			}
+
+			long now = System.nanoTime() - start;
+
+			try {
+
+				out.writeByte(kind);
+				writeVarLong(out, (now - last) / 1000);
+				writeIndexes(out, indexes);
+
+				// The time of the next record is relative to the microseconds written, so that rounding errors do not add up
+
+				last += (now - last) / 1000 * 1000;
+				recorded++;
+
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+
+		/**
+		 * Returns the indexes of the objects, or null if one of them is not in the formal context.
+		 */
+		private int[] objectIndexes(List<String> obj) {
+
+			int[] indexes = new int[obj.size()];
+
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = formalContext.indexOfObject(obj.get(i));
+				if (indexes[i] < 0) {
+					return null;
+				}
+			}
+			return indexes;
+		}
+	}
+
+	/**
+	 * Path of the variant list and fingerprint of the formal context of the trace
+	 */
+	private String source;
+	private String fingerprint;
+
+	/**
+	 * Queries of the trace, in the order in which they were made
+	 */
+	private ArrayList<Query> queries = new ArrayList<Query>();
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Reads a trace file. A record cut by the end of the file (e.g., the recorder was not closed) is ignored.
+	 *
+	 * @param path the path of the trace file
+	 * @throws IOException if the file cannot be read, or is not a trace
+	 */
+	public QueryTrace(String path) throws IOException {
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+
+			if (in.readInt() != MAGIC) {
+				throw new IOException(path + " is not a query trace");
+			}
+
+			source = in.readUTF();
+			fingerprint = in.readUTF();
+
+			long time = 0;
+
+			while (true) {
+
+				Query q = new Query();
+
+				try {
+					q.kind = in.readByte();
+					time += readVarLong(in) * 1000;
+					q.elements = readIndexes(in);
+				} catch (EOFException e) {
+					break;
+				}
+
+				q.time = time;
+				queries.add(q);
+			}
+		}
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the path of the variant list of the formal context on which the queries were made (relative to "data/").
+	 */
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the fingerprint of the formal context on which the queries were made.
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Returns the queries, in the order in which they were made.
+	 */
+	public List<Query> getQueries() {
+		return queries;
+	}
+
+	/**
+	 * Returns the time between the first and the last query, in nanoseconds.
+	 */
+	public long getDuration() {
+		return queries.isEmpty() ? 0 : queries.get(queries.size() - 1).time - queries.get(0).time;
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Writes a set of indexes: their number, then the sorted indexes as differences with the previous one.
+	 */
+	private static void writeIndexes(DataOutputStream out, int[] indexes) throws IOException {
+
+		int[] sorted = indexes.clone();
+		Arrays.sort(sorted);
+
+		writeVarLong(out, sorted.length);
+
+		int previous = 0;
+
+		for (int i : sorted) {
+			writeVarLong(out, i - previous);
+			previous = i;
+		}
+	}
+
+	/**
+	 * Reads a set of indexes written by writeIndexes.
+	 */
+	private static int[] readIndexes(DataInputStream in) throws IOException {
+
+		int[] indexes = new int[(int) readVarLong(in)];
+		int previous = 0;
+
+		for (int k = 0; k < indexes.length; k++) {
+			previous += (int) readVarLong(in);
+			indexes[k] = previous;
+		}
+		return indexes;
+	}
+
+	/**
+	 * Writes a non-negative integer on as many bytes as needed, 7 bits per byte, the high bit marking the bytes followed by another one.
+	 */
+	private static void writeVarLong(DataOutputStream out, long v) throws IOException {
+
+		while ((v & ~0x7FL) != 0) {
+			out.writeByte((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		out.writeByte((int) v);
+	}
+
+	/**
+	 * Reads an integer written by writeVarLong.
+	 */
+	private static long readVarLong(DataInputStream in) throws IOException {
+
+		long v = 0;
+
+		for (int shift = 0; ; shift += 7) {
+			byte b = in.readByte();
+			v |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return v;
+			}
+		}
+	}
+}
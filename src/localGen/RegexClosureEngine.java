@@ -0,0 +1,137 @@
+package localGen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is the reference closure engine: it matches the attribute sets of the objects with regular expressions,
+ * as the first implementation of FormalContext did.
+ *
+ * An attribute is owned by an object if it ends one of the attributes of its attribute set.
+ * It is slow (each closure reads all the attribute sets), and is only used to check the other engines.
+ *
+ */
+public class RegexClosureEngine implements ClosureEngine {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Name of the engine
+	 */
+	public static final String NAME = "regex";
+
+	/**
+	 * Formal context of the closures
+	 */
+	private FormalContext formalContext;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates the engine of a formal context.
+	 *
+	 * @param formalContext a formal context
+	 */
+	public RegexClosureEngine(FormalContext formalContext) {
+		this.formalContext = formalContext;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public ArrayList<String> attClosure(String att) {
+
+		List<String> objects = formalContext.getObjects();
+
+		ArrayList<String> closure = new ArrayList<String>();
+
+		objects.stream()
+		.filter(s -> s.matches("([a-zA-Z0-9 ]|;)*" + att + "(;|$)+([a-zA-Z0-9 ]|;)*"))
+		.map(x -> Integer.toString(objects.indexOf(x) + 1))
+		.forEach(closure::add);
+
+		return closure;
+	}
+
+	@Override
+	public ArrayList<String> objClosure(String obj) {
+
+		ArrayList<String> closure = new ArrayList<String>();
+
+		Arrays
+		.stream(formalContext.getObjectAtIndex(Integer.parseInt(obj) - 1).split(";"))
+		.forEach(closure::add);
+
+		return closure;
+	}
+
+	@Override
+	public ArrayList<String> setAttClosure(ArrayList<String> att) {
+
+		// Tests each object
+		// ownsAll stays at true if the attribute set corresponding to the object includes all the attributes of the subset att
+
+		ArrayList<String> closure = new ArrayList<String>();
+
+		for (int i = 0; i < formalContext.getNumberOfObjects(); i++) {
+
+			boolean ownsAll = true;
+
+			for (String a : att) {
+				if (!formalContext.getObjectAtIndex(i).matches("([a-zA-Z0-9 ]|;)*" + a + "(;|$)+([a-zA-Z0-9 ]|;)*")) {
+					ownsAll = false;
+				}
+			}
+
+			if (ownsAll) {
+				closure.add("" + (i + 1));
+			}
+		}
+
+		return closure;
+	}
+
+	@Override
+	public ArrayList<String> setObjClosure(ArrayList<String> obj) {
+
+		List<String> objects = formalContext.getObjects();
+
+		ArrayList<String> temp = new ArrayList<String>();
+
+		ArrayList<String> cl = new ArrayList<String>();
+		cl.addAll(formalContext.getAttributes());
+
+		// Retrieves the attribute sets of the objects, and keeps only the attributes present in each of them
+
+		objects.stream()
+		.filter(s -> obj.contains("" + (1 + objects.indexOf(s))))
+		.forEach(temp::add);
+
+		for (String o : temp) {
+			cl.retainAll(Arrays.asList(o.split(";")));
+		}
+
+		return cl;
+	}
+
+	@Override
+	public boolean isAttIntroducedIn(String att, Concept c) {
+		return c.getExtent().containsAll(attClosure(att)) && attClosure(att).containsAll(c.getExtent());
+	}
+
+	@Override
+	public boolean isObjIntroducedIn(String obj, Concept c) {
+		return c.getIntent().containsAll(objClosure(obj)) && objClosure(obj).containsAll(c.getIntent());
+	}
+}
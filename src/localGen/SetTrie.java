@@ -0,0 +1,218 @@
+package localGen;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class is a set-trie: an index of sets of integers answering subset and superset queries.
+ *
+ * Each set is inserted as the path of its elements, in increasing order, and its id is stored at the node ending the path.
+ * Sets sharing a prefix share the corresponding nodes, so that placing the most frequent elements first
+ * (i.e., giving them the smallest codes) keeps the trie small.
+ *
+ * Queries only explore the branches which may lead to an answer:
+ * - subsets(X) only follows the elements of X;
+ * - supersets(X) stops as soon as an element greater than the next element of X is met.
+ *
+ */
+public class SetTrie {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * A node of the trie: its children, sorted by element, the ids of the sets ending at this node,
+	 * and the length of the longest path below it
+	 */
+	private static class Node {
+
+		private int[] elements = new int[0];
+		private Node[] children = new Node[0];
+		private int[] ids = new int[0];
+		private int height;
+
+		private Node child(int e, boolean create) {
+
+			int i = Arrays.binarySearch(elements, e);
+
+			if (i >= 0) {
+				return children[i];
+			}
+			if (!create) {
+				return null;
+			}
+
+			i = -i - 1;
+
+			int[] newElements = new int[elements.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+
+			System.arraycopy(elements, 0, newElements, 0, i);
+			System.arraycopy(children, 0, newChildren, 0, i);
+			System.arraycopy(elements, i, newElements, i + 1, elements.length - i);
+			System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+
+			newElements[i] = e;
+			newChildren[i] = new Node();
+
+			elements = newElements;
+			children = newChildren;
+
+			return newChildren[i];
+		}
+
+		private void addId(int id) {
+			ids = Arrays.copyOf(ids, ids.length + 1);
+			ids[ids.length - 1] = id;
+		}
+	}
+
+	/**
+	 * Root of the trie, ending the empty set
+	 */
+	private Node root = new Node();
+
+	/**
+	 * Number of indexed sets
+	 */
+	private int size;
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Returns the number of indexed sets.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Indexes a set.
+	 *
+	 * @param set the elements of the set, in increasing order
+	 * @param id the id of the set
+	 */
+	public void add(int[] set, int id) {
+
+		Node n = root;
+
+		for (int i = 0; i < set.length; i++) {
+			n.height = Math.max(n.height, set.length - i);
+			n = n.child(set[i], true);
+		}
+
+		n.addId(id);
+		size++;
+	}
+
+	/**
+	 * Returns the ids of the indexed sets included in the set X.
+	 *
+	 * @param x the set X, as a bitset of its elements
+	 * @return the ids of the subsets of X
+	 */
+	public ArrayList<Integer> subsets(long[] x) {
+		return subsets(x, 0);
+	}
+
+	/**
+	 * Returns the ids of the indexed sets included in the set X and having at least minSize elements.
+	 * The branches whose paths are too short to reach minSize elements are not explored.
+	 *
+	 * @param x the set X, as a bitset of its elements
+	 * @param minSize the minimum number of elements of the returned sets
+	 * @return the ids of the subsets of X having at least minSize elements
+	 */
+	public ArrayList<Integer> subsets(long[] x, int minSize) {
+
+		ArrayList<Integer> res = new ArrayList<Integer>();
+
+		// Explicit stack: paths may be as long as the largest set
+		// Each node is stacked with the length of its path
+
+		ArrayDeque<Node> stack = new ArrayDeque<Node>();
+		ArrayDeque<Integer> depths = new ArrayDeque<Integer>();
+
+		if (root.height >= minSize) {
+			stack.push(root);
+			depths.push(0);
+		}
+
+		while (!stack.isEmpty()) {
+
+			Node n = stack.pop();
+			int depth = depths.pop();
+
+			if (depth >= minSize) {
+				for (int id : n.ids) {
+					res.add(id);
+				}
+			}
+
+			for (int i = 0; i < n.elements.length; i++) {
+
+				int e = n.elements[i];
+				Node child = n.children[i];
+
+				if (depth + 1 + child.height >= minSize && (e >>> 6) < x.length && ClosureKernels.get(x, e)) {
+					stack.push(child);
+					depths.push(depth + 1);
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the ids of the indexed sets including the set X.
+	 *
+	 * @param x the elements of X, in increasing order
+	 * @return the ids of the supersets of X
+	 */
+	public ArrayList<Integer> supersets(int[] x) {
+
+		ArrayList<Integer> res = new ArrayList<Integer>();
+
+		// Each node is stacked with the index of the next element of X to be met on its path
+
+		ArrayDeque<Node> nodes = new ArrayDeque<Node>();
+		ArrayDeque<Integer> nexts = new ArrayDeque<Integer>();
+
+		nodes.push(root);
+		nexts.push(0);
+
+		while (!nodes.isEmpty()) {
+
+			Node n = nodes.pop();
+			int next = nexts.pop();
+
+			// All the elements of X are on the path: the whole subtree answers
+
+			if (next == x.length) {
+				for (int id : n.ids) {
+					res.add(id);
+				}
+			}
+
+			for (int i = 0; i < n.elements.length; i++) {
+
+				int e = n.elements[i];
+
+				if (next == x.length || e < x[next]) {
+					nodes.push(n.children[i]);
+					nexts.push(next);
+				} else if (e == x[next]) {
+					nodes.push(n.children[i]);
+					nexts.push(next + 1);
+				} else {
+					// The children are sorted: x[next] cannot be met anymore
+					break;
+				}
+			}
+		}
+		return res;
+	}
+}
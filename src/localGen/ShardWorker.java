@@ -0,0 +1,237 @@
+package localGen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * This class is the process holding one shard of a ShardedFormalContext.
+ *
+ * Objects are distributed in round-robin: the shard s of k shards holds the objects of global index s, s+k, s+2k, ...
+ * The worker answers the requests of the coordinator, received on its standard input, on its standard output.
+ * Lists of attributes are written as a number of elements followed by the attributes (writeUTF),
+ * lists of objects as a number of elements followed by their global ids (writeInt).
+ *
+ */
+public class ShardWorker {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Requests of the coordinator
+	 */
+	static final byte ADD = 1;
+	static final byte INDEX = 2;
+	static final byte ATT_CLOSURE = 3;
+	static final byte OBJ_CLOSURE = 4;
+	static final byte OBJECT = 5;
+	static final byte QUIT = 6;
+	static final byte SUBSET_OBJECTS = 7;
+	static final byte SUPERSET_OBJECTS = 8;
+	static final byte SUBSET_ATTRIBUTES = 9;
+	static final byte SUPERSET_ATTRIBUTES = 10;
+
+	/**
+	 * Index of the shard and number of shards
+	 */
+	private int shard;
+	private int shards;
+
+	/**
+	 * Attribute sets received before the indexation
+	 */
+	private ArrayList<String> attributeSets = new ArrayList<String>();
+
+	/**
+	 * Formal context of the objects of the shard
+	 */
+	private FormalContext formalContext;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates the worker of the shard-th shard among shards.
+	 *
+	 * @param shard the index of the shard
+	 * @param shards the number of shards
+	 */
+	public ShardWorker(int shard, int shards) {
+		this.shard = shard;
+		this.shards = shards;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Answers the requests until the coordinator quits or closes the stream.
+	 *
+	 * @param in the requests
+	 * @param out the answers
+	 * @throws IOException if the coordinator cannot be reached
+	 */
+	public void serve(DataInputStream in, DataOutputStream out) throws IOException {
+
+		while (true) {
+
+			byte request;
+
+			try {
+				request = in.readByte();
+			} catch (EOFException e) {
+				return;
+			}
+
+			switch (request) {
+
+			case ADD:
+				attributeSets.addAll(readAttributes(in));
+				break;
+
+			case INDEX:
+				formalContext = new FormalContext(attributeSets, readAttributes(in));
+				attributeSets = null;
+				break;
+
+			case ATT_CLOSURE:
+				writeObjects(out, formalContext.setAttClosure(readAttributes(in)));
+				out.flush();
+				break;
+
+			case OBJ_CLOSURE:
+				ArrayList<String> obj = readObjects(in);
+				out.writeBoolean(!obj.isEmpty());
+				writeAttributes(out, obj.isEmpty() ? new ArrayList<String>() : formalContext.setObjClosure(obj));
+				out.flush();
+				break;
+
+			case OBJECT:
+				out.writeUTF(formalContext.getObjectAtIndex(toLocal(in.readInt())));
+				out.flush();
+				break;
+
+			case SUBSET_OBJECTS:
+				writeObjects(out, formalContext.objectsWithIntentIncludedIn(readAttributes(in)));
+				out.flush();
+				break;
+
+			case SUPERSET_OBJECTS:
+				writeObjects(out, formalContext.objectsWithIntentIncluding(readAttributes(in)));
+				out.flush();
+				break;
+
+			case SUBSET_ATTRIBUTES:
+				writeAttributes(out, formalContext.attributesWithExtentIncludedIn(readObjects(in)));
+				out.flush();
+				break;
+
+			case SUPERSET_ATTRIBUTES:
+				writeAttributes(out, formalContext.attributesWithExtentIncluding(readObjects(in)));
+				out.flush();
+				break;
+
+			case QUIT:
+				return;
+
+			default:
+				System.err.println("Shard " + shard + ": unknown request " + request);
+				return;
+			}
+		}
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Converts the global id of an object into its index in the shard, or -1 if the object is in another shard.
+	 */
+	private int toLocal(int id) {
+		return (id - 1) % shards == shard ? (id - 1) / shards : -1;
+	}
+
+	/**
+	 * Reads a list of attributes.
+	 */
+	static ArrayList<String> readAttributes(DataInputStream in) throws IOException {
+
+		int size = in.readInt();
+		ArrayList<String> att = new ArrayList<String>(size);
+
+		for (int i = 0; i < size; i++) {
+			att.add(in.readUTF());
+		}
+		return att;
+	}
+
+	/**
+	 * Writes a list of attributes.
+	 */
+	static void writeAttributes(DataOutputStream out, ArrayList<String> att) throws IOException {
+
+		out.writeInt(att.size());
+
+		for (String a : att) {
+			out.writeUTF(a);
+		}
+	}
+
+	/**
+	 * Reads a list of global object ids, and keeps the local ids of the objects of the shard.
+	 */
+	private ArrayList<String> readObjects(DataInputStream in) throws IOException {
+
+		int size = in.readInt();
+		ArrayList<String> obj = new ArrayList<String>();
+
+		for (int i = 0; i < size; i++) {
+			int local = toLocal(in.readInt());
+			if (local >= 0) {
+				obj.add(Integer.toString(local + 1));
+			}
+		}
+		return obj;
+	}
+
+	/**
+	 * Writes a list of local object ids as global ids.
+	 */
+	private void writeObjects(DataOutputStream out, ArrayList<String> obj) throws IOException {
+
+		out.writeInt(obj.size());
+
+		for (String o : obj) {
+			out.writeInt((Integer.parseInt(o) - 1) * shards + shard + 1);
+		}
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Starts a worker.
+	 *
+	 * @param args the index of the shard and the number of shards
+	 */
+	public static void main(String[] args) {
+
+		ShardWorker worker = new ShardWorker(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+
+		try {
+			worker.serve(new DataInputStream(new BufferedInputStream(System.in)),
+					new DataOutputStream(new BufferedOutputStream(System.out)));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
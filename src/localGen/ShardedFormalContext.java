@@ -0,0 +1,641 @@
+package localGen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This class represents a formal context whose objects are partitioned across several worker processes (ShardWorker).
+ * Each worker holds the attribute sets and the incidence bitsets of its objects; the coordinator only keeps the attributes.
+ *
+ * Objects keep the ids they would have in a FormalContext read from the same file, so that upperCover and lowerCover
+ * can be run unchanged on a sharded context:
+ * - the closure of an attribute set is the union of the closures computed by each shard;
+ * - the closure of an object set is the intersection of the partial intents computed by the shards holding its objects.
+ *
+ * The workers are stopped by close().
+ *
+ */
+public class ShardedFormalContext extends FormalContext implements AutoCloseable {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Number of objects sent before flushing a batch to a worker
+	 */
+	private static final int BATCH = 1024;
+
+	/**
+	 * Worker processes, and their streams
+	 */
+	private Process[] workers;
+	private DataInputStream[] in;
+	private DataOutputStream[] out;
+
+	/**
+	 * Total number of objects
+	 */
+	private int numberOfObjects;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates the coordinator of already loaded workers.
+	 */
+	private ShardedFormalContext(HashSet<String> domain, int numberOfObjects, Process[] workers, DataInputStream[] in, DataOutputStream[] out) {
+
+		super(Collections.<String>emptyList(), domain);
+
+		this.numberOfObjects = numberOfObjects;
+		this.workers = workers;
+		this.in = in;
+		this.out = out;
+	}
+
+	/**
+	 * Starts shards worker processes and distributes the objects of the text file specified in parameter among them.
+	 * The file is read as in FormalContext(path), and is also retrieved from the repository "data/".
+	 *
+	 * @param path the path to the text file containing the attribute sets
+	 * @param shards the number of worker processes
+	 * @return the sharded formal context
+	 * @throws IOException if the file cannot be read or a worker cannot be started
+	 */
+	public static ShardedFormalContext open(String path, int shards) throws IOException {
+
+		Process[] workers = new Process[shards];
+		DataInputStream[] in = new DataInputStream[shards];
+		DataOutputStream[] out = new DataOutputStream[shards];
+
+		// The workers run with the settings of the coordinator (kernels, engine, parallel threshold...)
+
+		ArrayList<String> command = new ArrayList<String>();
+
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+
+		for (String name : System.getProperties().stringPropertyNames()) {
+			if (name.startsWith("localGen.")) {
+				command.add("-D" + name + "=" + System.getProperty(name));
+			}
+		}
+
+		command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), ShardWorker.class.getName()));
+
+		for (int s = 0; s < shards; s++) {
+
+			ArrayList<String> worker = new ArrayList<String>(command);
+			worker.add(Integer.toString(s));
+			worker.add(Integer.toString(shards));
+
+			workers[s] = new ProcessBuilder(worker)
+					.redirectError(ProcessBuilder.Redirect.INHERIT)
+					.start();
+
+			in[s] = new DataInputStream(new BufferedInputStream(workers[s].getInputStream()));
+			out[s] = new DataOutputStream(new BufferedOutputStream(workers[s].getOutputStream()));
+		}
+
+		// Reads the file as FormalContext does, and sends the objects in round-robin by batches
+
+		HashSet<String> domain = new HashSet<String>();
+
+		ArrayList<ArrayList<String>> batches = new ArrayList<ArrayList<String>>();
+
+		for (int s = 0; s < shards; s++) {
+			batches.add(new ArrayList<String>());
+		}
+
+		int n = 0;
+
+		Iterator<String> it = Files.lines(Paths.get("data/" + path))
+				.map(line -> line.split("\\};\\{"))
+				.flatMap(Arrays::stream)
+				.distinct()
+				.map(o -> o.replaceAll("\\{|\\}", ""))
+				.iterator();
+
+		while (it.hasNext()) {
+
+			String o = it.next();
+
+			if (!isAttributeSet(o)) {
+				System.err.println("Attribute set in bad format : " + o);
+				continue;
+			}
+
+			domain.addAll(Arrays.asList(o.split(";")));
+
+			ArrayList<String> batch = batches.get(n % shards);
+			batch.add(o);
+			n++;
+
+			if (batch.size() == BATCH) {
+				out[(n - 1) % shards].writeByte(ShardWorker.ADD);
+				ShardWorker.writeAttributes(out[(n - 1) % shards], batch);
+				batch.clear();
+			}
+		}
+
+		// Sends the remaining objects and the domain, so that all workers index the same attributes
+
+		ArrayList<String> attributes = new ArrayList<String>(domain);
+
+		for (int s = 0; s < shards; s++) {
+
+			out[s].writeByte(ShardWorker.ADD);
+			ShardWorker.writeAttributes(out[s], batches.get(s));
+
+			out[s].writeByte(ShardWorker.INDEX);
+			ShardWorker.writeAttributes(out[s], attributes);
+			out[s].flush();
+		}
+
+		return new ShardedFormalContext(domain, n, workers, in, out);
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the attribute sets representing the objects.
+	 * They are retrieved from the workers, and modifying the list does not modify the formal context.
+	 *
+	 * @return a list of attribute sets.
+	 */
+	@Override
+	public ArrayList<String> getObjects() {
+
+		ArrayList<String> objects = new ArrayList<String>();
+
+		for (int i = 0; i < numberOfObjects; i++) {
+			objects.add(getObjectAtIndex(i));
+		}
+		return objects;
+	}
+
+	/**
+	 * Returns the number of shards.
+	 *
+	 * @return the number of worker processes
+	 */
+	public int getNumberOfShards() {
+		return workers.length;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	@Override
+	public int getNumberOfObjects() {
+		return numberOfObjects;
+	}
+
+	@Override
+	public synchronized String getObjectAtIndex(int index) {
+
+		if (index >= numberOfObjects || index < 0) {
+			System.err.println("Try to reach non existing object: ask " + index + " but only " + numberOfObjects + " objects.");
+			return null;
+		}
+
+		try {
+			int s = index % workers.length;
+			out[s].writeByte(ShardWorker.OBJECT);
+			out[s].writeInt(index + 1);
+			out[s].flush();
+			return in[s].readUTF();
+		} catch (IOException e) {
+			throw new IllegalStateException("Shard " + (index % workers.length) + " unreachable", e);
+		}
+	}
+
+	/**
+	 * The closures of a sharded formal context are computed by its workers, whatever its closure engine.
+	 */
+	@Override
+	public boolean isAttIntroducedIn(String att, Concept c) {
+		ArrayList<String> closure = attClosure(att);
+		return c.getExtent().containsAll(closure) && closure.containsAll(c.getExtent());
+	}
+
+	@Override
+	public boolean isObjIntroducedIn(String obj, Concept c) {
+		ArrayList<String> closure = objClosure(obj);
+		return c.getIntent().containsAll(closure) && closure.containsAll(c.getIntent());
+	}
+
+	@Override
+	public ArrayList<String> attClosure(String att) {
+		return setAttClosure(new ArrayList<String>(Collections.singletonList(att)));
+	}
+
+	/**
+	 * Computes the closure of a subset of attributes: the union of the closures computed by all the shards.
+	 *
+	 * @param att a subset of attributes
+	 * @return the ids of the objects having all the attributes, in increasing order
+	 */
+	@Override
+	public synchronized ArrayList<String> setAttClosure(ArrayList<String> att) {
+
+		try {
+
+			// Scatter
+
+			for (DataOutputStream o : out) {
+				o.writeByte(ShardWorker.ATT_CLOSURE);
+				ShardWorker.writeAttributes(o, att);
+				o.flush();
+			}
+
+			// Gather
+
+			long[] closure = ClosureKernels.create(numberOfObjects, false);
+
+			for (DataInputStream i : in) {
+				int size = i.readInt();
+				for (int k = 0; k < size; k++) {
+					ClosureKernels.set(closure, i.readInt() - 1);
+				}
+			}
+
+			return ClosureKernels.toIds(closure);
+
+		} catch (IOException e) {
+			throw new IllegalStateException("Shard unreachable", e);
+		}
+	}
+
+	/**
+	 * Computes the closure of a subset of objects: the intersection of the partial intents of the shards holding these objects.
+	 *
+	 * @param obj a set of object ids
+	 * @return the attributes shared by all the objects
+	 */
+	@Override
+	public synchronized ArrayList<String> setObjClosure(ArrayList<String> obj) {
+
+		int shards = workers.length;
+
+		ArrayList<ArrayList<Integer>> parts = new ArrayList<ArrayList<Integer>>();
+
+		for (int s = 0; s < shards; s++) {
+			parts.add(new ArrayList<Integer>());
+		}
+
+		for (String o : obj) {
+			try {
+				int id = Integer.parseInt(o);
+				if (id >= 1 && id <= numberOfObjects) {
+					parts.get((id - 1) % shards).add(id);
+				}
+			} catch (NumberFormatException e) {
+				// Not an object of the formal context
+			}
+		}
+
+		try {
+
+			// Scatter to the shards holding some of the objects
+
+			for (int s = 0; s < shards; s++) {
+				if (!parts.get(s).isEmpty()) {
+					out[s].writeByte(ShardWorker.OBJ_CLOSURE);
+					out[s].writeInt(parts.get(s).size());
+					for (int id : parts.get(s)) {
+						out[s].writeInt(id);
+					}
+					out[s].flush();
+				}
+			}
+
+			// Gather
+
+			long[] closure = ClosureKernels.create(getAttributes().size(), true);
+
+			for (int s = 0; s < shards; s++) {
+				if (!parts.get(s).isEmpty()) {
+					in[s].readBoolean();
+					ClosureKernels.and(closure, attributeSet(ShardWorker.readAttributes(in[s])));
+				}
+			}
+
+			return attributeList(closure);
+
+		} catch (IOException e) {
+			throw new IllegalStateException("Shard unreachable", e);
+		}
+	}
+
+	/**
+	 * Computes the closures of several subsets of attributes, one scatter-gather per subset.
+	 *
+	 * @param sets subsets of attributes
+	 * @return the closure of each subset, in the order of sets
+	 */
+	@Override
+	public ArrayList<ArrayList<String>> setAttClosures(List<ArrayList<String>> sets) {
+
+		ArrayList<ArrayList<String>> closures = new ArrayList<ArrayList<String>>();
+
+		for (ArrayList<String> att : sets) {
+			closures.add(setAttClosure(att));
+		}
+		return closures;
+	}
+
+	/**
+	 * Computes the closures of several subsets of objects, one scatter-gather per subset.
+	 *
+	 * @param sets subsets of object ids
+	 * @return the closure of each subset, in the order of sets
+	 */
+	@Override
+	public ArrayList<ArrayList<String>> setObjClosures(List<ArrayList<String>> sets) {
+
+		ArrayList<ArrayList<String>> closures = new ArrayList<ArrayList<String>>();
+
+		for (ArrayList<String> obj : sets) {
+			closures.add(setObjClosure(obj));
+		}
+		return closures;
+	}
+
+	@Override
+	public ArrayList<String> objectsWithIntentIncludedIn(ArrayList<String> intent) {
+		return gatherObjects(ShardWorker.SUBSET_OBJECTS, intent);
+	}
+
+	@Override
+	public ArrayList<String> objectsWithIntentIncluding(ArrayList<String> intent) {
+		return gatherObjects(ShardWorker.SUPERSET_OBJECTS, intent);
+	}
+
+	/**
+	 * Returns the attributes whose closure is included in extent: the attributes whose partial closure
+	 * is included in the part of extent held by each shard.
+	 */
+	@Override
+	public ArrayList<String> attributesWithExtentIncludedIn(ArrayList<String> extent) {
+		return gatherAttributes(ShardWorker.SUBSET_ATTRIBUTES, extent);
+	}
+
+	@Override
+	public ArrayList<String> attributesWithExtentIncludedIn(ArrayList<String> extent, int minSupport) {
+
+		ArrayList<String> att = attributesWithExtentIncludedIn(extent);
+		att.removeIf(a -> getSupport(a) < minSupport);
+
+		return att;
+	}
+
+	@Override
+	public int getSupport(String att) {
+		return attClosure(att).size();
+	}
+
+	@Override
+	public int getIntroducerSupport(String obj) {
+		return setAttClosure(objClosure(obj)).size();
+	}
+
+	/**
+	 * Returns the attributes whose closure includes extent: the attributes whose partial closure
+	 * includes the part of extent held by each shard.
+	 */
+	@Override
+	public ArrayList<String> attributesWithExtentIncluding(ArrayList<String> extent) {
+		return gatherAttributes(ShardWorker.SUPERSET_ATTRIBUTES, extent);
+	}
+
+	@Override
+	public ArrayList<String> objectsWithMaximalIntent(ArrayList<String> obj) {
+
+		int[][] sets = new int[obj.size()][];
+
+		for (int k = 0; k < obj.size(); k++) {
+			sets[k] = ClosureKernels.toIndexes(attributeSet(objClosure(obj.get(k))));
+		}
+
+		boolean[] maximal = maximalSets(sets);
+
+		ArrayList<String> res = new ArrayList<String>();
+
+		for (int k = 0; k < obj.size(); k++) {
+			if (maximal[k]) {
+				res.add(obj.get(k));
+			}
+		}
+		return res;
+	}
+
+	@Override
+	public ArrayList<String> attributesWithMaximalExtent(ArrayList<String> att) {
+
+		int[][] sets = new int[att.size()][];
+
+		for (int k = 0; k < att.size(); k++) {
+			sets[k] = ClosureKernels.toIndexes(objectSet(attClosure(att.get(k))));
+		}
+
+		boolean[] maximal = maximalSets(sets);
+
+		ArrayList<String> res = new ArrayList<String>();
+
+		for (int k = 0; k < att.size(); k++) {
+			if (maximal[k]) {
+				res.add(att.get(k));
+			}
+		}
+		return res;
+	}
+
+	@Override
+	public ArrayList<String> attributesWithMinimalExtent(ArrayList<String> att) {
+
+		int[][] sets = new int[att.size()][];
+
+		for (int k = 0; k < att.size(); k++) {
+			sets[k] = ClosureKernels.toIndexes(objectSet(attClosure(att.get(k))));
+		}
+
+		boolean[] minimal = minimalSets(sets, numberOfObjects);
+
+		ArrayList<String> res = new ArrayList<String>();
+
+		for (int k = 0; k < att.size(); k++) {
+			if (minimal[k]) {
+				res.add(att.get(k));
+			}
+		}
+		return res;
+	}
+
+	@Override
+	public boolean isObjClosureIncludedIn(String obj, long[] intent) {
+		return ClosureKernels.isSubset(attributeSet(objClosure(obj)), intent);
+	}
+
+	@Override
+	public boolean isAttClosureIncludedIn(String att, long[] extent) {
+		return ClosureKernels.isSubset(objectSet(attClosure(att)), extent);
+	}
+
+	/**
+	 * Sends an attribute set to all the shards, and returns the union of the objects they answer.
+	 */
+	private synchronized ArrayList<String> gatherObjects(byte request, ArrayList<String> att) {
+
+		try {
+
+			for (DataOutputStream o : out) {
+				o.writeByte(request);
+				ShardWorker.writeAttributes(o, att);
+				o.flush();
+			}
+
+			long[] res = ClosureKernels.create(numberOfObjects, false);
+
+			for (DataInputStream i : in) {
+				int size = i.readInt();
+				for (int k = 0; k < size; k++) {
+					ClosureKernels.set(res, i.readInt() - 1);
+				}
+			}
+
+			return ClosureKernels.toIds(res);
+
+		} catch (IOException e) {
+			throw new IllegalStateException("Shard unreachable", e);
+		}
+	}
+
+	/**
+	 * Sends an object set to all the shards, and returns the intersection of the attributes they answer.
+	 */
+	private synchronized ArrayList<String> gatherAttributes(byte request, ArrayList<String> obj) {
+
+		try {
+
+			for (DataOutputStream o : out) {
+				o.writeByte(request);
+				o.writeInt(obj.size());
+				for (String id : obj) {
+					o.writeInt(Integer.parseInt(id));
+				}
+				o.flush();
+			}
+
+			long[] res = ClosureKernels.create(getAttributes().size(), true);
+
+			for (DataInputStream i : in) {
+				ClosureKernels.and(res, attributeSet(ShardWorker.readAttributes(i)));
+			}
+
+			return attributeList(res);
+
+		} catch (IOException e) {
+			throw new IllegalStateException("Shard unreachable", e);
+		}
+	}
+
+	/**
+	 * Returns a String describing the sharding.
+	 */
+	@Override
+	public String toString() {
+		return numberOfObjects + " objects in " + workers.length + " shards";
+	}
+
+	/**
+	 * Stops the workers.
+	 */
+	@Override
+	public synchronized void close() {
+
+		for (int s = 0; s < workers.length; s++) {
+			try {
+				out[s].writeByte(ShardWorker.QUIT);
+				out[s].flush();
+				workers[s].waitFor();
+			} catch (IOException e) {
+				workers[s].destroy();
+			} catch (InterruptedException e) {
+				workers[s].destroy();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Computes the neighbourhoods of all the object-concepts of a variant list with a FormalContext and with a ShardedFormalContext,
+	 * and compares their sizes.
+	 *
+	 * @param args the path of a variant list (relative to "data/"), and the number of shards
+	 */
+	public static void main(String[] args) {
+
+		String path = args.length > 0 ? args[0] : "fork-insight/linux/output.txt";
+		int shards = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+		FormalContext local = new FormalContext(path);
+
+		try (ShardedFormalContext sharded = ShardedFormalContext.open(path, shards)) {
+
+			Concept c1 = new Concept();
+			Concept c2 = new Concept();
+
+			int mismatches = 0;
+
+			long localTime = 0;
+			long shardedTime = 0;
+
+			for (int i = 1; i <= local.getNumberOfObjects(); i++) {
+
+				long t = System.nanoTime();
+				c1.setObjIntroducer(Integer.toString(i), local);
+				int n1 = TestLocalGen.upperCover(c1, local) + TestLocalGen.lowerCover(c1, local);
+				localTime += System.nanoTime() - t;
+
+				t = System.nanoTime();
+				c2.setObjIntroducer(Integer.toString(i), sharded);
+				int n2 = TestLocalGen.upperCover(c2, sharded) + TestLocalGen.lowerCover(c2, sharded);
+				shardedTime += System.nanoTime() - t;
+
+				if (n1 != n2 || !c1.getExtent().equals(c2.getExtent())) {
+					mismatches++;
+				}
+			}
+
+			System.out.println("Name:\t\t\t\t\t" + path);
+			System.out.println("Number of objects:\t\t\t" + sharded.getNumberOfObjects());
+			System.out.println("Number of shards:\t\t\t" + sharded.getNumberOfShards());
+			System.out.println("Mismatching neighbourhoods:\t\t" + mismatches);
+			System.out.println("Local time:\t\t\t\t" + localTime / 1000000 + " ms");
+			System.out.println("Sharded time:\t\t\t\t" + shardedTime / 1000000 + " ms");
+
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
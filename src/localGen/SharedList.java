@@ -0,0 +1,164 @@
+package localGen;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is an append-only list whose successive versions share their elements, used for the objects of the versions of a formal context.
+ *
+ * The next version of a list is created by next(), in constant time: both lists share the same array, and the elements appended
+ * to the next version are written after the elements of the previous one, which keeps its size and thus never sees them.
+ * Only the last version of an array appends in place: appending to an older version (a second next version of the same list)
+ * first copies its elements in a new array.
+ *
+ * The list may also index the positions of its elements, for indexOf() and contains() in constant time.
+ * Elements are read without lock, and a version is only appended to by the thread building it.
+ *
+ * @param <T> the type of the elements
+ */
+class SharedList<T> extends AbstractList<T> implements RandomAccess {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * State shared by the lists of an array: the size of the last version, the only one appending in place,
+	 * and the first position of each element, if indexed
+	 */
+	private static class Storage {
+		private int size;
+		private ConcurrentHashMap<Object, Integer> positions;
+	}
+
+	/**
+	 * Elements, of which the first size ones belong to this list
+	 */
+	private Object[] elements;
+	private int size;
+	private Storage storage;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates an empty list.
+	 *
+	 * @param indexed true to index the positions of the elements
+	 */
+	SharedList(boolean indexed) {
+
+		elements = new Object[16];
+		storage = new Storage();
+
+		if (indexed) {
+			storage.positions = new ConcurrentHashMap<Object, Integer>();
+		}
+	}
+
+	private SharedList(SharedList<T> previous) {
+		elements = previous.elements;
+		size = previous.size;
+		storage = previous.storage;
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Returns the next version of the list: a list with the same elements, sharing their array.
+	 *
+	 * @return a new list
+	 */
+	SharedList<T> next() {
+		return new SharedList<T>(this);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+		}
+		return (T) elements[index];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Appends an element, after the elements of the list.
+	 */
+	@Override
+	public boolean add(T t) {
+
+		synchronized (storage) {
+
+			// Another version has already appended to the array: this one gets its own copy
+
+			if (storage.size != size) {
+				detach();
+			} else if (size == elements.length) {
+				elements = Arrays.copyOf(elements, size * 2);
+			}
+
+			elements[size] = t;
+
+			if (storage.positions != null) {
+				storage.positions.putIfAbsent(t, size);
+			}
+
+			size++;
+			storage.size = size;
+		}
+		return true;
+	}
+
+	@Override
+	public int indexOf(Object o) {
+
+		if (storage.positions == null) {
+			return super.indexOf(o);
+		}
+
+		Integer i = storage.positions.get(o);
+
+		return i != null && i < size ? i : -1;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+
+	/************************* PRIVATE METHODS *************************/
+
+
+	/**
+	 * Copies the elements of the list in an array of its own.
+	 */
+	private void detach() {
+
+		Storage copy = new Storage();
+		copy.size = size;
+
+		if (storage.positions != null) {
+
+			copy.positions = new ConcurrentHashMap<Object, Integer>();
+
+			for (int i = size - 1; i >= 0; i--) {
+				copy.positions.put(elements[i], i);
+			}
+		}
+
+		elements = Arrays.copyOf(elements, Math.max(16, size * 2));
+		storage = copy;
+	}
+}
@@ -6,7 +6,11 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 public class TestLocalGen {
 
@@ -17,9 +21,17 @@ public class TestLocalGen {
 		// File containing the paths to the configuration lists to be tested
 		
 		String path = "data/fork-insight/files.txt";
+		
+		// Optional persistent store of the computed neighbourhoods (-DlocalGen.store=path)
+		
+		NeighbourhoodStore store = null;
 
 		try {
 			
+			if (System.getProperty("localGen.store") != null) {
+				store = new NeighbourhoodStore(System.getProperty("localGen.store"), Long.getLong("localGen.storeSize", 1L << 30));
+			}
+			
 			// Retrieves the paths
 			
 			Files.lines(Paths.get(path))
@@ -34,6 +46,28 @@ public class TestLocalGen {
 				// Creates a formal context
 				
 				FormalContext formalContext= new FormalContext("fork-insight/" + file);
+				
+				// Keeps the neighbourhoods already computed for this context (-DlocalGen.cacheSize, 0 to disable)
+				
+				NeighbourhoodCache cache = new NeighbourhoodCache(formalContext, Integer.getInteger("localGen.cacheSize", 1000), store);
+				
+				// Optional trace of the queries, one file per variant list in the directory -DlocalGen.trace, replayed by QueryReplay
+				
+				QueryTrace.Recorder recorder = null;
+				
+				if (System.getProperty("localGen.trace") != null) {
+					recorder = new QueryTrace.Recorder(System.getProperty("localGen.trace") + "/" + file.replace('/', '_') + ".trace", "fork-insight/" + file, formalContext);
+					cache.setRecorder(recorder);
+				}
+				
+				// Optional warm-up of the cache in the background (-DlocalGen.warmup=milliseconds), started right after the load
+				
+				CacheWarmer warmer = null;
+				
+				if (Long.getLong("localGen.warmup", 0) > 0) {
+					warmer = new CacheWarmer(formalContext, cache);
+					warmer.start(Runtime.getRuntime().availableProcessors(), Long.getLong("localGen.warmup", 0), Integer.MAX_VALUE);
+				}
 	
 				long currentTime = java.lang.System.currentTimeMillis();
 				
@@ -47,6 +81,10 @@ public class TestLocalGen {
 				
 				int k = 0;
 				
+				// Counts the distinct concepts generated, whatever the size of the cache
+				
+				ConceptRegistry generated = new ConceptRegistry();
+				
 				for (int i = 0 ; i < 100 ; i++) {
 					
 					// Takes a random object
@@ -60,7 +98,13 @@ public class TestLocalGen {
 					// Of all concepts except the top-concept
 					
 					if (!currentConcept.getIntent().contains("") && !currentConcept.getIntent().isEmpty()) {
-						cn += upperCover(currentConcept, formalContext) + lowerCover(currentConcept, formalContext) + 1;
+						Neighbourhood n = cache.neighbourhood(currentConcept);
+						
+						generated.intern(currentConcept);
+						generated.intern(n.getUpperCover());
+						generated.intern(n.getLowerCover());
+						
+						cn += n.getNumberOfConcepts() + 1;
 					} else {
 						System.out.println("TOP, dodged.");
 					}
@@ -68,13 +112,32 @@ public class TestLocalGen {
 				
 				long timeExec = java.lang.System.currentTimeMillis() - currentTime;
 				
+				if (recorder != null) {
+					recorder.close();
+				}
+				
+				if (warmer != null) {
+					warmer.stop();
+				}
+				
 				System.out.println("Name:\t\t\t\t\t" + file);
 				System.out.println("Number of objects:\t\t\t" + formalContext.getNumberOfObjects());
 				System.out.println("Number of attributes:\t\t\t" + formalContext.getAttributes().size());
 				System.out.println("Number of generated concepts:\t\t" + (cn+1));
+				System.out.println("Number of distinct concepts:\t\t" + generated.size());
+				System.out.println("Neighbourhoods read from the cache:\t" + cache.getHits() + " / " + (cache.getHits() + cache.getMisses()));
+				if (warmer != null) {
+					System.out.println("Neighbourhoods warmed:\t\t\t" + warmer.getWarmed());
+				}
 				System.out.println("Average time of computation / step:\t" + (timeExec / 100) + " ms");
 
 			}
+			
+			if (store != null) {
+				System.out.println("Neighbourhoods read from the store:\t" + store.getHits() + " / " + (store.getHits() + store.getMisses()));
+				store.close();
+			}
+			
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -92,173 +155,208 @@ public class TestLocalGen {
 	 * @return the size of the upper cover of the current concept
 	 */
 	public static int upperCover(Concept currentConcept, FormalContext formalContext){
+		return computeUpperCover(currentConcept, formalContext).getNumberOfConcepts();
+	}
+	
+	/**
+	 * This function computes the lower cover  of the current concept specified in parameter
+	 * 
+	 * @param currentConcept the current concept for which we want to compute the lower cover
+	 * @param formalContext the formal context
+	 * @return the size of the lower cover
+	 */
+	public static int lowerCover(Concept currentConcept, FormalContext formalContext){
+		return computeLowerCover(currentConcept, formalContext).getNumberOfConcepts();
+	}
+	
+	/**
+	 * This function computes the upper-cover of a concept in the iceberg AOC-poset,
+	 * i.e., the AOC-poset restricted to the concepts having at least minSupport objects.
+	 * 
+	 * @param currentConcept the current concept
+	 * @param formalContext the formal context from which is computed the upper neighbours
+	 * @param minSupport the minimum number of objects of the concepts
+	 * @return the size of the upper cover of the current concept
+	 */
+	public static int upperCover(Concept currentConcept, FormalContext formalContext, int minSupport){
+		return computeUpperCover(currentConcept, formalContext, minSupport).getNumberOfConcepts();
+	}
+	
+	/**
+	 * This function computes the lower cover of a concept in the iceberg AOC-poset,
+	 * i.e., the AOC-poset restricted to the concepts having at least minSupport objects.
+	 * 
+	 * @param currentConcept the current concept
+	 * @param formalContext the formal context
+	 * @param minSupport the minimum number of objects of the concepts
+	 * @return the size of the lower cover
+	 */
+	public static int lowerCover(Concept currentConcept, FormalContext formalContext, int minSupport){
+		return computeLowerCover(currentConcept, formalContext, minSupport).getNumberOfConcepts();
+	}
+	
+	/**
+	 * This function computes the upper-cover of a concept in the AOC-poset.
+	 * 
+	 * @param currentConcept the current concept
+	 * @param formalContext the formal context from which is computed the upper neighbours
+	 * @return the upper cover of the current concept
+	 */
+	public static ConceptualCover computeUpperCover(Concept currentConcept, FormalContext formalContext){
 		
 		ConceptualCover cover = new ConceptualCover(formalContext);
 		
-		/*************************************************/
-		/************ COMPUTING CANDIDATES AC ************/
-		/*************************************************/
+		fillUpperCover(cover, currentConcept, formalContext, new Introducers(formalContext), QueryBudget.UNLIMITED);
 		
-		// candidateAttributeConcepts receives the attributes introduced in potential AC candidates
-		// Potential AC candidates are the attribute-concepts which introduce the attributes present in the intent of the current concept
-		
-		ArrayList<String> candidateAttributeConcepts = new ArrayList<String>();		
-		candidateAttributeConcepts.addAll(currentConcept.getIntent()); 
-
-		// Will store attributes introduced in final candidates AC
-		
-		ArrayList<String> attributeConcepts = new ArrayList<String>();			
+		return cover;
+	}
+	
+	/**
+	 * This function adds to cover the upper cover of a concept.
+	 * It is shared by computeUpperCover and computeNeighbourhood.
+	 *
+	 * The super-concepts are compared by their extents, as in fillLowerCover: a candidate is over the current concept if its extent
+	 * strictly includes the current extent, and a candidate AC is over a candidate OC if its closure includes the extent of the OC.
+	 *
+	 * @param cover the cover receiving the concepts
+	 * @param currentConcept the current concept
+	 * @param formalContext the formal context
+	 * @param introducers closures and introducers of the formal context
+	 * @param budget the time budget of the computation
+	 * @return false if the budget was exhausted, cover then holding the concepts found so far
+	 */
+	private static boolean fillUpperCover(ConceptualCover cover, Concept currentConcept, FormalContext formalContext,
+			Introducers introducers, QueryBudget budget){
 		
-		// If an attribute is introduced in the current concept, it cannot be a candidate attribute concept
-		// These attributes are removed from the potential attribute concept candidates
+		HashSet<String> currentExtent = new HashSet<String>(currentConcept.getExtent());
+		int support = currentExtent.size();
 		
-		candidateAttributeConcepts.removeIf(a -> formalContext.isAttIntroducedIn(a, currentConcept));	
+		/*************************************************/
+		/************ COMPUTING CANDIDATES AC ************/
+		/*************************************************/
 		
-		// Adds the remaining candidates into the set of attribute concepts ...
-	
-		attributeConcepts.addAll(candidateAttributeConcepts);
+		// The attributes owned by all the objects of the current extent, retrieved from the set-trie of the closures
+		// Those owned by more objects are introduced in a strict super-concept
 		
-		// ... and removes from the set of attribute concepts the attributes which do not correspond to a direct upper attribute concept
+		ArrayList<String> including = formalContext.attributesWithExtentIncluding(currentConcept.getExtent());
 		
-		ArrayList<String> F = new ArrayList<String>();
-
-		// For each candidate attribute
+		LinkedHashMap<ArrayList<String>, String> byExtent = new LinkedHashMap<ArrayList<String>, String>();
 		
-		for (String a : candidateAttributeConcepts) {
-			
-			// If a is not removed from the candidates
-			
-			if (attributeConcepts.contains(a)) {
-				
-				// F receives the closure of a, i.e., the intent of the concept introducing a
+		for (String a : including) {
+			if (formalContext.getSupport(a) > support) {
 				
-				F.clear();
-				F.addAll(formalContext.setObjClosure(formalContext.attClosure(a)));
+				// Attributes introduced in the same concept are kept once
 				
-				// a is removed from F, and F removed from AC
-				F.remove(a);
-				attributeConcepts.removeAll(F);
+				byExtent.putIfAbsent(introducers.attClosure(a), a);
 			}
 		}
 		
-		// attributeConcepts kept the attributes introduced in the lowest upper attributes-concepts
-				
-		// Adds them in the upper cover
+		// Keeps the lowest ones, i.e., those whose closure includes the closure of no other candidate
+		
+		ArrayList<String> AC3 = formalContext.attributesWithMinimalExtent(new ArrayList<String>(byExtent.values()));
 		
-		for (String a : attributeConcepts) {
-			cover.addCandidateAC(a);
+		for (String a : AC3) {
+			cover.addCandidateAC(a, introducers.attConcept(a));
 		}
-
-			
+		
+		
 		/*************************************************/
 		/************ COMPUTING CANDIDATES OC ************/
 		/*************************************************/
 		
-		// R <- {{a}'' | a in AC}
-		// R receives the set of intents of candidates attribute-concepts
-			
-		ArrayList<ArrayList<String>> R = new ArrayList<ArrayList<String>>();
-		R = cover.getListOfIntents();		
 		
-				
-		// Some objects 
+		if (budget.isExhausted()) {
+			return false;
+		}
 		
-		ArrayList<String> O = new ArrayList<String>(); 		
+		// An object outside the current extent is introduced in a strict super-concept if all its attributes are owned by the objects of the current extent,
+		// i.e., if its attribute set is included in the attributes retrieved above
+		// Objects having the same attribute set, whatever the order of their attributes, are introduced in the same concept, and kept once
 		
-		// Stores all objects introduced in potential object-concepts
+		LinkedHashMap<HashSet<String>, String> byIntent = new LinkedHashMap<HashSet<String>, String>();
 		
-		Set<String> objectConcepts = new HashSet<String>();				
+		for (String o : formalContext.objectsWithIntentIncludedIn(including)) {
+			if (!currentExtent.contains(o)) {
+				byIntent.putIfAbsent(new HashSet<String>(introducers.objClosure(o)), o);
+			}
+		}
 		
-		// For each attribute-concept intents in R
-		// Computes their closure
-		// And remove the current concept extent to find introduced objects being candidate object-concepts
+		// Removes the candidates whose attribute set is included in the attribute set of another candidate, which is introduced lower
 		
-		for(ArrayList<String> I : R) {
-			
-			O.clear();
-			O.addAll(formalContext.setAttClosure(I));
-			O.removeAll(currentConcept.getExtent());
-			objectConcepts.addAll(O);
-		}
+		ArrayList<String> OC2 = formalContext.objectsWithMaximalIntent(new ArrayList<String>(byIntent.values()));
 		
-		// Keeps only the objects introduced in the super concept of the current one
+		// R receives the attribute sets of the candidates
+		// Their closures, i.e., the extents of their introducers, are computed at once
 		
-		ArrayList<String> OC2 = new ArrayList<String>();
-
-		for (String o : objectConcepts) {
-			if (currentConcept.getIntent().containsAll(formalContext.objClosure(o))) {
-				OC2.add(o);
-			}
+		ArrayList<ArrayList<String>> R = new ArrayList<ArrayList<String>>();
+		
+		for (String o : OC2) {
+			R.add(introducers.objClosure(o));
 		}
-				
-		// Removes the candidates which are not the lowest ones
 		
-		ArrayList<String> OC3 = new ArrayList<String>();
+		ArrayList<HashSet<String>> closures = introducers.setAttClosures(R);
 		
-		OC3.addAll(OC2);
+		// Keeps the lowest ones: the introducer of o is over the introducer of another candidate if its extent contains that candidate
+		// Introducers having the same extent are kept once
 		
-		boolean isLowest;
+		ArrayList<String> OC3 = new ArrayList<String>();
+		HashSet<HashSet<String>> kept = new HashSet<HashSet<String>>();
 		
-		for (String o1 : OC2){
+		for (int k = 0; k < OC2.size(); k++) {
+			
+			// The budget is checked before each candidate, and the concepts found so far are kept when it is exhausted
 			
-			isLowest = true;
+			if (budget.isExhausted()) {
+				return false;
+			}
 			
-			for (String o2 : OC2) {
-				if (!o1.equals(o2) && formalContext.objClosure(o2).containsAll(formalContext.objClosure(o1)) && isLowest) {
-					isLowest = false;
+			HashSet<String> extent = closures.get(k);
+			boolean lowest = true;
+			
+			for (int l = 0; l < OC2.size() && lowest; l++) {
+				if (extent.contains(OC2.get(l)) && !extent.equals(closures.get(l))) {
+					lowest = false;
 				}
 			}
-			if (!isLowest) {
-				OC3.remove(o1);
+			
+			if (lowest && kept.add(extent)) {
+				OC3.add(OC2.get(k));
 			}
 		}
-				
+		
 		
 		/************************************************/
 		/********* MERGING CANDIDATES AC AND OC *********/
 		/************************************************/
 		
 		
-		
-		ArrayList<ArrayList<String>> T = new ArrayList<ArrayList<String>>();
-		
-		// For each objects introduced in candidates object-concepts
-		
 		for (String o : OC3) {
 			
-			// Test "if introduced in super concept of current concept" removed
+			if (budget.isExhausted()) {
+				return false;
+			}
 			
-			T.clear();
+			HashSet<String> extent = closures.get(OC2.indexOf(o));
+			long[] S = formalContext.objectSet(new ArrayList<String>(extent));
 			
-			// Retrieves in T all attribute-concepts having o in their extent 
-			// i.e., attribute concept having object concepts between them and the current concept
+			// A candidate OC over a candidate AC, or equal to it, is not the lowest one
 			
-			for (ArrayList<String> S : R) {
-				if (formalContext.setAttClosure(S).contains(o)) {
-					T.add(S);
-				}
+			if (AC3.stream().anyMatch(a -> formalContext.isAttClosureIncludedIn(a, S))) {
+				continue;
 			}
 			
-			if (T.size() > 0) {
-				
-				// T possesses attribute-concepts which have introducer of o between them and the current concept
-				// Removes them from the cover
-				
-				for (ArrayList<String> t : T) {
-
-					cover.removeConceptByIntent(t);
+			// Otherwise it replaces the candidates AC over it, i.e., whose closure includes its extent
+			
+			for (String a : AC3) {
+				if (introducers.attClosureSet(a).containsAll(extent)) {
+					cover.removeConceptByExtent(introducers.attClosure(a));
 				}
-				
-				// Adds introducer of o as object-concepts of the upper cover
-				
-				cover.addCandidateOC(o);
 			}
+			
+			cover.addCandidateOC(o, introducers.objConcept(o));
 		}
 		
-	//	System.out.println("[" + cover.getNumberOfConcepts() + "] Upper cover:\n" + cover);
-		
-		return cover.getNumberOfConcepts();
-	
+		return true;
 	}
 	
 	/**
@@ -266,60 +364,127 @@ public class TestLocalGen {
 	 * 
 	 * @param currentConcept the current concept for which we want to compute the lower cover
 	 * @param formalContext the formal context
-	 * @return the size of the lower cover
+	 * @return the lower cover
 	 */
-	public static int lowerCover(Concept currentConcept, FormalContext formalContext){
+	public static ConceptualCover computeLowerCover(Concept currentConcept, FormalContext formalContext){
+		
+		// The AOC-poset is the iceberg at threshold 0
+		
+		return computeLowerCover(currentConcept, formalContext, 0);
+	}
+	
+	/**
+	 * This function computes the upper-cover of a concept in the iceberg AOC-poset,
+	 * i.e., the AOC-poset restricted to the concepts having at least minSupport objects.
+	 * 
+	 * The super-concepts of a concept have more objects than it: if the current concept reaches minSupport, all its candidates do,
+	 * and its upper cover is the one of the whole AOC-poset. Else, the current concept is not in the iceberg, and its cover is empty.
+	 * 
+	 * @param currentConcept the current concept
+	 * @param formalContext the formal context from which is computed the upper neighbours
+	 * @param minSupport the minimum number of objects of the concepts
+	 * @return the upper cover of the current concept
+	 */
+	public static ConceptualCover computeUpperCover(Concept currentConcept, FormalContext formalContext, int minSupport){
+		
+		if (currentConcept.getExtent().size() < minSupport) {
+			return new ConceptualCover(formalContext);
+		}
+		return computeUpperCover(currentConcept, formalContext);
+	}
+	
+	/**
+	 * This function computes the lower cover of a concept in the iceberg AOC-poset,
+	 * i.e., the AOC-poset restricted to the concepts having at least minSupport objects.
+	 * 
+	 * A sub-concept having at least minSupport objects is under a direct sub-concept having at least as many objects:
+	 * the lower cover in the iceberg is made of the direct sub-concepts reaching minSupport.
+	 * Candidates under minSupport are dropped before any closure is computed:
+	 * object candidates by the support of their introducer, attribute candidates directly in the set-trie of the closures.
+	 * 
+	 * @param currentConcept the current concept
+	 * @param formalContext the formal context
+	 * @param minSupport the minimum number of objects of the concepts
+	 * @return the lower cover
+	 */
+	public static ConceptualCover computeLowerCover(Concept currentConcept, FormalContext formalContext, int minSupport){
 		
 		ConceptualCover cover = new ConceptualCover(formalContext);
 		
+		fillLowerCover(cover, currentConcept, formalContext, minSupport, new Introducers(formalContext), QueryBudget.UNLIMITED);
+		
+		return cover;
+	}
+	
+	/**
+	 * This function adds to cover the lower cover of a concept among the concepts having at least minSupport objects (all of them if minSupport is 0).
+	 * It is shared by computeLowerCover and computeNeighbourhood.
+	 *
+	 * The sub-concepts are compared by their extents: a candidate is under the current concept if it has strictly fewer objects,
+	 * and a candidate OC is under a candidate AC if its extent is included in the closure of the attribute.
+	 *
+	 * @param cover the cover receiving the concepts
+	 * @param currentConcept the current concept
+	 * @param formalContext the formal context
+	 * @param minSupport the minimum number of objects of the concepts
+	 * @param introducers closures and introducers of the formal context
+	 * @param budget the time budget of the computation
+	 * @return false if the budget was exhausted, cover then holding the concepts found so far
+	 */
+	private static boolean fillLowerCover(ConceptualCover cover, Concept currentConcept, FormalContext formalContext, int minSupport,
+			Introducers introducers, QueryBudget budget){
+		
+		int support = currentConcept.getExtent().size();
+		
+		// The current concept is not in the iceberg
+		
+		if (support < minSupport) {
+			return true;
+		}
+		
 		/*************************************************/
 		/************ COMPUTING CANDIDATES OC ************/
 		/*************************************************/
 		
-		// candiateObjectConcepts receives the objects potentially introduced in candidate object-concepts
+		// The introducer of an object of the extent is under the current concept: it is the current concept if it has as many objects
+		// Keeps the objects whose introducer is a strict sub-concept reaching minSupport
 		
-		// Stores objects which can be candidates, i.e., the ones in the extent of the current concept
+		ArrayList<String> candidateObjectConcepts = new ArrayList<String>();
 		
-		ArrayList<String> candidateObjectConcepts = new ArrayList<String>();		
-		candidateObjectConcepts.addAll(currentConcept.getExtent()); 
-		
-		// If an object is introduced in the current concept, it cannot be a candidate
+		for (String o : currentConcept.getExtent()) {
+			int s = formalContext.getIntroducerSupport(o);
+			if (s >= minSupport && s < support) {
+				candidateObjectConcepts.add(o);
+			}
+		}
 		
-		candidateObjectConcepts.removeIf(o -> formalContext.isObjIntroducedIn(o, currentConcept));		
-	
 		// Will store objects introduced in final candidates OC
-
-		ArrayList<String> objectConcepts = new ArrayList<String>();			
-		objectConcepts.addAll(candidateObjectConcepts);
 		
+		ArrayList<String> objectConcepts = new ArrayList<String>(candidateObjectConcepts);
 		
-		// for each object candidate
+		// Removes the objects introduced under another candidate, i.e., in the extent of its introducer
+		// An object under a rare candidate is rare too, and has already been dropped
 		
 		ArrayList<String> F = new ArrayList<String>();
 		
 		for (String o : candidateObjectConcepts) {
 			
-			// If o is not removed from the candidates
+			// The budget is checked before each closure, and the concepts found so far are kept when it is exhausted
+			
+			if (budget.isExhausted()) {
+				return false;
+			}
 			
 			if (objectConcepts.contains(o)) {
-				
-				// F receives the concept introducing o
-				
 				F.clear();
-				F.addAll(formalContext.setAttClosure(formalContext.objClosure(o)));
-				
-				// o is removed from F, and F removed from object-concepts
-				
+				F.addAll(introducers.objConcept(o).getExtent());
 				F.remove(o);
 				objectConcepts.removeAll(F);
 			}
 		}
-		// objectConcepts kept the objects introduced in the greatest lower object-concepts
-		// Thus, candidates concept in the lower cover of the current concept
-				
-		// Adds them in conceptual neighbourhood
+		
 		for (String o : objectConcepts) {
-			cover.addCandidateOC(o);
+			cover.addCandidateOC(o, introducers.objConcept(o));
 		}
 		
 		
@@ -328,117 +493,310 @@ public class TestLocalGen {
 		/*************************************************/
 		
 		
-		// R <- {{o}'' | o in OC}
+		if (budget.isExhausted()) {
+			return false;
+		}
+		
 		// R receives the set of extents of candidates object concepts
-			
-		ArrayList<ArrayList<String>> R = new ArrayList<ArrayList<String>>();
-		R = cover.getListOfExtents();
-	
-		// Some attributes introduced in potential attribute-concepts
 		
-		ArrayList<String> A = new ArrayList<String>(); 		
+		ArrayList<ArrayList<String>> R = cover.getListOfExtents();
 		
-		// Stock all attributes introduced in potential attributeConcepts
+		// Attributes introduced in a strict sub-concept reaching minSupport, retrieved from the set-trie of the closures:
+		// an attribute-concept over no candidate OC (e.g., when they are all rare) is not lost
 		
-		Set<String> attributeConcepts = new HashSet<String>();				
+		LinkedHashMap<ArrayList<String>, String> byExtent = new LinkedHashMap<ArrayList<String>, String>();
 		
-		// For each object-concept extents in R
-		// Computes their closure
-		// And removes the current concept intent to find introduced attributes being candidate attribute-concepts
+		for (String a : formalContext.attributesWithExtentIncludedIn(currentConcept.getExtent(), minSupport)) {
+			if (formalContext.getSupport(a) < support) {
 				
+				// Attributes introduced in the same concept are kept once
+				
+				byExtent.putIfAbsent(introducers.attClosure(a), a);
+			}
+		}
+		
+		// Keeps the greatest ones, which are not under a candidate OC
+		
+		ArrayList<long[]> objectSets = new ArrayList<long[]>();
 		
-		for (ArrayList<String> E : R) {
-			A.clear();
-			A.addAll(formalContext.setObjClosure(E));
-			A.removeAll(currentConcept.getIntent());
-			attributeConcepts.addAll(A);
+		for (ArrayList<String> S : R) {
+			objectSets.add(formalContext.objectSet(S));
 		}
-
-		// Keep only the attributes introduced in the sub concept of the current one
 		
-		ArrayList<String> AC2 = new ArrayList<String>();
+		ArrayList<String> AC3 = formalContext.attributesWithMaximalExtent(new ArrayList<String>(byExtent.values()));
+		
+		AC3.removeIf(a -> objectSets.stream().anyMatch(S -> formalContext.isAttClosureIncludedIn(a, S)));
+		
+		
+		/************************************************/
+		/********* MERGING CANDIDATES AC AND OC *********/
+		/************************************************/
+		
+		
+		// Each candidate AC replaces the candidates OC under it, i.e., whose extent is included in its closure
 		
-		for (String a : attributeConcepts) {
-			if (currentConcept.getExtent().containsAll(formalContext.attClosure(a))) {
-				AC2.add(a);
+		for (String a : AC3) {
+			
+			if (budget.isExhausted()) {
+				return false;
 			}
+			
+			HashSet<String> extent = introducers.attClosureSet(a);
+			
+			for (ArrayList<String> S : R) {
+				if (extent.containsAll(S)) {
+					cover.removeConceptByExtent(S);
+				}
+			}
+			
+			cover.addCandidateAC(a, introducers.attConcept(a));
 		}
-				
-		// Remove the candidates which are not the greatest ones
 		
-		ArrayList<String> AC3 = new ArrayList<String>();
-		AC3.addAll(AC2);
+		return true;
+	}
+
+	/**
+	 * Closures and introducers computed during a neighbourhood computation, shared by the upper cover and the lower cover.
+	 * 
+	 * They may also be kept from one neighbourhood to the next one, as NeighbourhoodWalk does:
+	 * as neighbouring concepts share most of their attributes and objects, only the closures of the differences are then computed.
+	 * Each kind of closure keeps at most maxEntries values, the least recently used ones being dropped.
+	 */
+	static class Introducers {
 		
-		boolean isGreatest = true;
-		for (String a : AC2) {
-			isGreatest = true;
-			for (String a2 : AC2) {
-				if (!a.equals(a2) && formalContext.attClosure(a2).containsAll(formalContext.attClosure(a))&& isGreatest) {
-					isGreatest = false;
-				}
+		/**
+		 * Values kept, in access order (least recently used first)
+		 */
+		private static class Memo<K, V> {
+			
+			private LinkedHashMap<K, V> values;
+			
+			private Memo(int maxEntries) {
+				values = new LinkedHashMap<K, V>(16, 0.75f, true) {
+					
+					private static final long serialVersionUID = 1L;
+					
+					@Override
+					protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+						return size() > maxEntries;
+					}
+				};
 			}
-			if (!isGreatest) {
-				AC3.remove(a);
+			
+			private V get(K key, Function<K, V> compute, Introducers stats) {
+				
+				V v = values.get(key);
+				
+				if (v != null) {
+					stats.reused++;
+				} else {
+					v = compute.apply(key);
+					stats.computed++;
+					values.put(key, v);
+				}
+				return v;
 			}
 		}
 		
+		private FormalContext formalContext;
 		
+		private Memo<String, ArrayList<String>> attClosures;
+		private Memo<String, ArrayList<String>> objClosures;
+		private Memo<String, HashSet<String>> attClosureSets;
+		private Memo<String, Concept> attConcepts;
+		private Memo<String, Concept> objConcepts;
+		private Memo<ArrayList<String>, HashSet<String>> extents;
 		
-		/************************************************/
-		/********* MERGING CANDIDATES AC AND OC *********/
-		/************************************************/
+		/**
+		 * Number of closures computed, and found already computed
+		 */
+		private long computed;
+		private long reused;
+		
+		Introducers(FormalContext formalContext) {
+			this(formalContext, Integer.MAX_VALUE);
+		}
+		
+		Introducers(FormalContext formalContext, int maxEntries) {
+			
+			this.formalContext = formalContext;
+			
+			attClosures = new Memo<String, ArrayList<String>>(maxEntries);
+			objClosures = new Memo<String, ArrayList<String>>(maxEntries);
+			attClosureSets = new Memo<String, HashSet<String>>(maxEntries);
+			attConcepts = new Memo<String, Concept>(maxEntries);
+			objConcepts = new Memo<String, Concept>(maxEntries);
+			extents = new Memo<ArrayList<String>, HashSet<String>>(maxEntries);
+		}
+		
+		long getComputed() {
+			return computed;
+		}
+		
+		long getReused() {
+			return reused;
+		}
 		
+		private ArrayList<String> attClosure(String att) {
+			return attClosures.get(att, formalContext::attClosure, this);
+		}
 		
+		private ArrayList<String> objClosure(String obj) {
+			return objClosures.get(obj, formalContext::objClosure, this);
+		}
 		
-		ArrayList<ArrayList<String>> T = new ArrayList<ArrayList<String>>();
+		private HashSet<String> attClosureSet(String att) {
+			return attClosureSets.get(att, a -> new HashSet<String>(attClosure(a)), this);
+		}
 		
-		// For each attribute introduced in candidate attribute concepts
+		/**
+		 * The attribute-concept introducing att, as computed by ConceptualCover.addCandidateAC(att)
+		 */
+		private Concept attConcept(String att) {
+			return attConcepts.get(att, a -> new Concept(formalContext.setObjClosure(attClosure(a)), attClosure(a)), this);
+		}
 		
-		for (String a : AC3) {
+		/**
+		 * The object-concept introducing obj, as computed by ConceptualCover.addCandidateOC(obj)
+		 */
+		private Concept objConcept(String obj) {
+			return objConcepts.get(obj, o -> new Concept(objClosure(o), formalContext.setAttClosure(objClosure(o))), this);
+		}
+		
+		/**
+		 * The closures of the intents of R; those not known yet are computed in one batch
+		 */
+		private ArrayList<HashSet<String>> setAttClosures(ArrayList<ArrayList<String>> R) {
+			return closures(R, extents, formalContext::setAttClosures);
+		}
+		
+		private ArrayList<HashSet<String>> closures(ArrayList<ArrayList<String>> R, Memo<ArrayList<String>, HashSet<String>> memo,
+				Function<List<ArrayList<String>>, ArrayList<ArrayList<String>>> batch) {
 			
-			// if introduced in sub concept of current concept
-//			if(cc.getExtent().containsAll(conf.attClosure(a))){
-	
-			T.clear();
+			ArrayList<HashSet<String>> closures = new ArrayList<HashSet<String>>();
+			ArrayList<Integer> missing = new ArrayList<Integer>();
+			
+			// Known closures are looked up once, the others are computed together
+			
+			for (int k = 0; k < R.size(); k++) {
 				
-			// Retrieves in T all object-concepts having a in their intent
+				HashSet<String> c = memo.values.get(R.get(k));
 				
-			for (ArrayList<String> S : R) {
-				if (formalContext.setObjClosure(S).contains(a)) {
-						T.add(S);
+				if (c != null) {
+					reused++;
+				} else {
+					missing.add(k);
 				}
-			}	
+				closures.add(c);
+			}
 			
-			if(T.size() > 0){
+			if (!missing.isEmpty()) {
 				
-				// T possesses object-concepts which have an attribute concept between them and the current concept
-				// Removes them from the lower cover
+				ArrayList<ArrayList<String>> sets = new ArrayList<ArrayList<String>>();
 				
-				for (ArrayList<String> t : T) {
-				
-					cover.removeConceptByExtent(t);
+				for (int k : missing) {
+					sets.add(new ArrayList<String>(R.get(k)));
 				}
+				
+				ArrayList<ArrayList<String>> results = batch.apply(sets);
+				
+				for (int i = 0; i < missing.size(); i++) {
+					
+					// A set appearing twice in R gets the same closure
+					
+					HashSet<String> c = memo.values.get(sets.get(i));
 					
-				// Adds attribute concepts in the lower cover
-				cover.addCandidateAC(a);
+					if (c == null) {
+						c = new HashSet<String>(results.get(i));
+						memo.values.put(sets.get(i), c);
+					}
+					closures.set(missing.get(i), c);
+					computed++;
+				}
 			}
-				
-			
-//				
-//			} 
-//			else{
-////					System.out.println("Delete candidate AC "+a);
-//			}
+			return closures;
 		}
-		
-	//	System.out.println("[" + cover.getNumberOfConcepts() + "] Lower cover: \n" + cover);
-		
-		return cover.getNumberOfConcepts();
+	}
+	
+	/**
+	 * This function computes the upper cover and the lower cover of a concept in one pass.
+	 * 
+	 * It gives the same covers as computeUpperCover and computeLowerCover, but each closure is computed once:
+	 * the introducers of the candidates are shared by the candidate, filter and merge phases of both covers,
+	 * and the closures of the candidate concepts are shared by the candidate and merge phases.
+	 * The introducer tests compare sets instead of lists.
+	 * 
+	 * @param currentConcept the current concept
+	 * @param formalContext the formal context
+	 * @return the neighbourhood of the current concept
+	 */
+	public static Neighbourhood computeNeighbourhood(Concept currentConcept, FormalContext formalContext){
+		return computeNeighbourhood(currentConcept, formalContext, new Introducers(formalContext));
+	}
 	
+	/**
+	 * This function computes the neighbourhood of a concept as computeNeighbourhood(currentConcept, formalContext) does,
+	 * with closures and introducers possibly computed for a previous concept.
+	 * 
+	 * @param currentConcept the current concept
+	 * @param formalContext the formal context
+	 * @param introducers closures and introducers of the formal context
+	 * @return the neighbourhood of the current concept
+	 */
+	static Neighbourhood computeNeighbourhood(Concept currentConcept, FormalContext formalContext, Introducers introducers){
+		return computeNeighbourhood(currentConcept, formalContext, introducers, QueryBudget.UNLIMITED);
 	}
-
-
 	
+	/**
+	 * This function computes the neighbourhood of a concept as computeNeighbourhood(currentConcept, formalContext) does,
+	 * within a time budget.
+	 * 
+	 * The budget is checked in the candidate, filter and merge loops of both covers. When it is exhausted (or the thread is interrupted,
+	 * if the budget honours interruptions), the computation stops and returns the concepts found so far, in a neighbourhood flagged as partial:
+	 * they are strict super-concepts (sub-concepts) of the current concept, but may not be direct ones, and some direct ones may be missing.
+	 * 
+	 * @param currentConcept the current concept
+	 * @param formalContext the formal context
+	 * @param budget the time budget of the computation
+	 * @return the neighbourhood of the current concept, possibly partial
+	 */
+	public static Neighbourhood computeNeighbourhood(Concept currentConcept, FormalContext formalContext, QueryBudget budget){
+		return computeNeighbourhood(currentConcept, formalContext, new Introducers(formalContext), budget);
+	}
 	
+	/**
+	 * This function computes the neighbourhood of a concept with closures and introducers possibly computed for a previous concept, within a time budget.
+	 */
+	static Neighbourhood computeNeighbourhood(Concept currentConcept, FormalContext formalContext, Introducers introducers, QueryBudget budget){
+		
+		ConceptualCover upper = new ConceptualCover(formalContext);
+		ConceptualCover lower = new ConceptualCover(formalContext);
+		
+		
+		/*************************************************/
+		/****************** UPPER COVER ******************/
+		/*************************************************/
+		
+		
+		// Computed as by computeUpperCover, sharing its closures and introducers with the lower cover
+		
+		if (!fillUpperCover(upper, currentConcept, formalContext, introducers, budget)) {
+			return new Neighbourhood(currentConcept, upper, lower, true);
+		}
+		
+		
+		/*************************************************/
+		/****************** LOWER COVER ******************/
+		/*************************************************/
+		
+		
+		// Computed as by the iceberg computeLowerCover at threshold 0, sharing the closures and introducers of the upper cover
+		
+		if (!fillLowerCover(lower, currentConcept, formalContext, 0, introducers, budget)) {
+			return new Neighbourhood(currentConcept, upper, lower, true);
+		}
+		
+		return new Neighbourhood(currentConcept, upper, lower);
+	}
 
 }
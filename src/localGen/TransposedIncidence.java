@@ -0,0 +1,230 @@
+package localGen;
+
+import java.util.Arrays;
+
+/**
+ * This class is a transposed view of the incidence relation of a formal context:
+ * FormalContext stores one bitset of objects per attribute (its closure) and one bitset of attributes per object (its attribute set),
+ * this view stores the same two relations the other way round.
+ *
+ * As in FormalContext, an object has an attribute in a closure if the attribute ends one of the attributes of its attribute set,
+ * while its attribute set only contains its own attributes. Both relations are thus transposed separately:
+ * - for each attribute, the bitset of the objects whose attribute set contains it;
+ * - for each object, the bitset of the attributes whose closure contains it.
+ *
+ * The view is built in one pass over the set bits of the formal context, and also records the size of each closure and of each attribute set.
+ *
+ * The view of the next version of a formal context extends the view of the previous one: the rows of the previous objects are shared,
+ * and only the new objects are transposed. The row of an object thus only holds the attributes known when it was built,
+ * and the closures of the later attributes are looked up in the formal context.
+ *
+ */
+public class TransposedIncidence {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * For each attribute, the bitset of the objects whose attribute set contains it
+	 */
+	private long[][] objectsOf;
+
+	/**
+	 * For each object, the bitset of the attributes whose closure contains it, among the first built ones, shared with the next versions
+	 */
+	private SharedList<long[]> attributesOf;
+	private SharedList<Integer> built;
+
+	/**
+	 * Number of objects in the closure of each attribute, and number of attributes in the attribute set of each object
+	 */
+	private int[] supports;
+	private SharedList<Integer> sizes;
+
+	/**
+	 * Formal context transposed
+	 */
+	private FormalContext formalContext;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Transposes the incidence relation of a formal context.
+	 *
+	 * @param formalContext a formal context, which is not modified
+	 */
+	public TransposedIncidence(FormalContext formalContext) {
+
+		int n = formalContext.getNumberOfObjects();
+		int m = formalContext.getAttributes().size();
+
+		this.formalContext = formalContext;
+
+		objectsOf = new long[m][];
+		attributesOf = new SharedList<long[]>(false);
+		built = new SharedList<Integer>(false);
+		supports = new int[m];
+		sizes = new SharedList<Integer>(false);
+
+		for (int a = 0; a < m; a++) {
+			objectsOf[a] = ClosureKernels.create(n, false);
+		}
+		for (int o = 0; o < n; o++) {
+			attributesOf.add(ClosureKernels.create(m, false));
+			built.add(m);
+		}
+
+		// Attribute sets: object o contains attribute a
+
+		for (int o = 0; o < n; o++) {
+
+			int size = 0;
+
+			for (int a : ClosureKernels.toIndexes(formalContext.intentOf(o))) {
+				ClosureKernels.set(objectsOf[a], o);
+				size++;
+			}
+			sizes.add(size);
+		}
+
+		// Closures: attribute a ends an attribute of object o
+
+		for (int a = 0; a < m; a++) {
+			for (int o : ClosureKernels.toIndexes(formalContext.extentAt(a))) {
+				ClosureKernels.set(attributesOf.get(o), a);
+				supports[a]++;
+			}
+		}
+	}
+
+	/**
+	 * Extends the transposed view of the previous version of a formal context to its next version.
+	 * Only the new objects are read; the columns of the attributes they contain are copied on their first modification.
+	 *
+	 * @param previous the transposed view of the previous version, which is not modified
+	 * @param formalContext the next version, created from the previous one by FormalContext(previous, attributeSets)
+	 */
+	TransposedIncidence(TransposedIncidence previous, FormalContext formalContext) {
+
+		int n = formalContext.getNumberOfObjects();
+		int m = formalContext.getAttributes().size();
+		int n0 = previous.attributesOf.size();
+		int m0 = previous.objectsOf.length;
+		int objectWords = (n + 63) >>> 6;
+
+		this.formalContext = formalContext;
+
+		objectsOf = Arrays.copyOf(previous.objectsOf, m);
+		attributesOf = previous.attributesOf.next();
+		built = previous.built.next();
+		supports = Arrays.copyOf(previous.supports, m);
+		sizes = previous.sizes.next();
+
+		boolean[] copied = new boolean[m];
+
+		for (int a = m0; a < m; a++) {
+			objectsOf[a] = ClosureKernels.create(n, false);
+			copied[a] = true;
+		}
+
+		for (int o = n0; o < n; o++) {
+
+			// Attribute sets: object o contains attribute a
+
+			int size = 0;
+
+			for (int a : ClosureKernels.toIndexes(formalContext.intentOf(o))) {
+				if (!copied[a]) {
+					objectsOf[a] = Arrays.copyOf(objectsOf[a], objectWords);
+					copied[a] = true;
+				}
+				ClosureKernels.set(objectsOf[a], o);
+				size++;
+			}
+			sizes.add(size);
+
+			// Closures: the attributes ending an attribute of object o, found among its suffixes as in FormalContext
+
+			long[] row = ClosureKernels.create(m, false);
+
+			for (String t : formalContext.getObjectAtIndex(o).split(";")) {
+				for (int k = 0; k <= t.length(); k++) {
+					int a = formalContext.indexOfAttribute(t.substring(k));
+					if (a >= 0 && !ClosureKernels.get(row, a)) {
+						ClosureKernels.set(row, a);
+						if (a < m0) {
+							supports[a]++;
+						}
+					}
+				}
+			}
+			attributesOf.add(row);
+			built.add(m);
+		}
+
+		// The closures of the new attributes may also contain previous objects
+
+		for (int a = m0; a < m; a++) {
+			supports[a] = ClosureKernels.cardinality(formalContext.extentAt(a));
+		}
+	}
+
+
+	/************************* GETTERS AND SETTERS *************************/
+
+
+	/**
+	 * Returns the bitset of the objects whose attribute set contains the attribute of index a.
+	 *
+	 * @param a the index of an attribute
+	 * @return a bitset of objects
+	 */
+	public long[] objectsOf(int a) {
+		return objectsOf[a];
+	}
+
+	/**
+	 * Returns true if the object of index o is in the closures of all the attributes of set.
+	 *
+	 * @param o the index of an object
+	 * @param set a bitset of attributes
+	 * @return true if each attribute of set ends an attribute of the object
+	 */
+	public boolean isInClosures(int o, long[] set) {
+
+		long[] row = attributesOf.get(o);
+		int b = built.get(o);
+
+		if (b == formalContext.getAttributes().size()) {
+			return ClosureKernels.isSubset(set, row);
+		}
+
+		// The attributes added after the row was built are looked up in their closures
+
+		for (int a : ClosureKernels.toIndexes(set)) {
+
+			boolean owned = a < b ? ClosureKernels.get(row, a) : ClosureKernels.get(formalContext.extentAt(a), o);
+
+			if (!owned) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of objects in the closure of the attribute of index a.
+	 */
+	public int getSupport(int a) {
+		return supports[a];
+	}
+
+	/**
+	 * Returns the number of attributes in the attribute set of the object of index o.
+	 */
+	public int getSize(int o) {
+		return sizes.get(o);
+	}
+}
@@ -0,0 +1,187 @@
+package localGen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * This class holds the successive versions of a formal context, so that objects can be added while other threads compute covers.
+ *
+ * Versions are never modified: readers pin the current version with snapshot(), without any lock,
+ * and compute all their results on it, which are thus consistent with a single version.
+ * Writers build the next version, which shares the unmodified bitsets with the previous one,
+ * and publish it atomically. Writers are serialised, so that no added object is lost.
+ *
+ * The versions are FormalContext instances built here from attribute sets: a ShardedFormalContext, whose objects are held by
+ * its workers, cannot be versioned.
+ *
+ */
+public class VersionedFormalContext {
+
+	/************************* ATTRIBUTES *************************/
+
+
+	/**
+	 * Current version
+	 */
+	private AtomicReference<FormalContext> current;
+
+
+	/************************* CONSTRUCTORS *************************/
+
+
+	/**
+	 * Creates the versions of a formal context, starting from the formal context of a list of attribute sets.
+	 *
+	 * @param attributeSets the attribute sets of the objects of the first version, of the form A;B;C
+	 */
+	public VersionedFormalContext(List<String> attributeSets) {
+		this.current = new AtomicReference<FormalContext>(new FormalContext(attributeSets));
+	}
+
+	/**
+	 * Creates the versions of a formal context, starting from the formal context of a text file.
+	 *
+	 * @param path the path to the text file containing the attribute sets, relative to "data/"
+	 */
+	public VersionedFormalContext(String path) {
+		this.current = new AtomicReference<FormalContext>(new FormalContext(path));
+	}
+
+
+	/************************* PUBLIC METHODS *************************/
+
+
+	/**
+	 * Returns the current version of the formal context. It is never modified, even when new versions are published.
+	 *
+	 * @return a formal context
+	 */
+	public FormalContext snapshot() {
+		return current.get();
+	}
+
+	/**
+	 * Publishes a new version containing the objects of the current version followed by the new attribute sets.
+	 * As when reading a file, attribute sets already in the formal context are not added again.
+	 *
+	 * @param attributeSets the attribute sets of the new objects, of the form A;B;C
+	 * @return the new version
+	 */
+	public synchronized FormalContext addObjects(List<String> attributeSets) {
+
+		FormalContext next = new FormalContext(current.get(), attributeSets);
+		current.set(next);
+
+		return next;
+	}
+
+
+	/************************* MAIN *************************/
+
+
+	/**
+	 * Loads half of a variant list, then compares the latency of neighbourhood queries
+	 * with and without a writer adding the other half by batches.
+	 *
+	 * @param args the path of a variant list (relative to "data/"), the number of reader threads and the size of the batches
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+
+		String path = args.length > 0 ? args[0] : "fork-insight/2048/output.txt";
+		int readers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int batch = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+		// Reads the attribute sets as FormalContext does
+
+		List<String> sets = Files.lines(Paths.get("data/" + path))
+				.map(line -> line.split("\\};\\{"))
+				.flatMap(Arrays::stream)
+				.distinct()
+				.map(o -> o.replaceAll("\\{|\\}", ""))
+				.filter(FormalContext::isAttributeSet)
+				.collect(Collectors.toList());
+
+		List<String> initial = sets.subList(0, sets.size() / 2);
+		List<String> ingested = sets.subList(sets.size() / 2, sets.size());
+
+		System.out.println("Name:\t\t\t\t\t" + path);
+
+		for (boolean ingesting : new boolean[] { false, true }) {
+
+			VersionedFormalContext versions = new VersionedFormalContext(initial);
+
+			Thread writer = new Thread(() -> {
+				for (int i = 0; i < ingested.size(); i += batch) {
+					versions.addObjects(ingested.subList(i, Math.min(i + batch, ingested.size())));
+				}
+			});
+
+			ArrayList<Long> latencies = new ArrayList<Long>();
+			Thread[] threads = new Thread[readers];
+
+			for (int r = 0; r < readers; r++) {
+
+				Random random = new Random(r);
+
+				threads[r] = new Thread(() -> {
+
+					for (int q = 0; q < 100; q++) {
+
+						// All the results of the query are computed on the same version
+
+						FormalContext formalContext = versions.snapshot();
+
+						long start = System.nanoTime();
+
+						Concept c = new Concept();
+						c.setObjIntroducer(Integer.toString(1 + random.nextInt(initial.size())), formalContext);
+						Neighbourhood.compute(c, formalContext);
+
+						long latency = System.nanoTime() - start;
+
+						synchronized (latencies) {
+							latencies.add(latency);
+						}
+					}
+				});
+			}
+
+			long currentTime = System.currentTimeMillis();
+
+			if (ingesting) {
+				writer.start();
+			}
+			for (Thread t : threads) {
+				t.start();
+			}
+			for (Thread t : threads) {
+				t.join();
+			}
+			if (ingesting) {
+				writer.join();
+			}
+
+			long timeExec = System.currentTimeMillis() - currentTime;
+
+			latencies.sort(null);
+
+			System.out.println(ingesting ? "With ingestion" : "Without ingestion");
+			System.out.println("Last version:\t\t\t\t" + versions.snapshot().getVersion() + " (" + versions.snapshot().getNumberOfObjects() + " objects)");
+			System.out.println("Total time:\t\t\t\t" + timeExec + " ms");
+			System.out.println("Latency p50 / p99:\t\t\t" + latencies.get(latencies.size() / 2) / 1000000 + " / "
+					+ latencies.get(latencies.size() * 99 / 100) / 1000000 + " ms");
+
+			if (ingesting) {
+				System.out.println("Same content as the whole list:\t\t"
+						+ versions.snapshot().getFingerprint().equals(new FormalContext(path).getFingerprint()));
+			}
+		}
+	}
+}